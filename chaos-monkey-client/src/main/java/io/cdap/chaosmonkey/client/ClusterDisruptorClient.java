@@ -22,9 +22,11 @@ import io.cdap.chaosmonkey.common.Constants;
 import io.cdap.chaosmonkey.proto.ActionArguments;
 import io.cdap.chaosmonkey.proto.ActionStatus;
 import io.cdap.chaosmonkey.proto.ClusterDisruptor;
+import io.cdap.chaosmonkey.proto.DisruptionJob;
 import io.cdap.chaosmonkey.proto.NodeStatus;
 import io.cdap.chaosmonkey.proto.ServiceInfo;
 import io.cdap.common.http.HttpRequest;
+import io.cdap.common.http.HttpRequestConfig;
 import io.cdap.common.http.HttpRequests;
 import io.cdap.common.http.HttpResponse;
 
@@ -34,6 +36,8 @@ import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import javax.annotation.Nullable;
@@ -48,6 +52,9 @@ public class ClusterDisruptorClient implements ClusterDisruptor {
   private static final Type STATUSES_TYPE = new TypeToken<Collection<NodeStatus>>() { }.getType();
   private static final Type SERVICE_TYPE = new TypeToken<Collection<ServiceInfo>>() { }.getType();
   private static final Gson GSON = new Gson();
+  private static final long DEFAULT_TIMEOUT_SECONDS = 15;
+  // Longest wait requested from the server in a single long-poll
+  private static final long MAX_WAIT_SECONDS = 60;
 
   private final String hostname;
   private final int port;
@@ -74,19 +81,66 @@ public class ClusterDisruptorClient implements ClusterDisruptor {
     executeActionWithArgument(service, disruptionName, actionArguments);
   }
 
+  /**
+   * Submits a disruption on the given service as a job
+   *
+   * @param service The name of the service to run the disruption against
+   * @param disruptionName The name of the disruption to be run
+   * @param actionArguments Optional, the configuration for the action
+   * @return A {@link Future} that completes with the final state of the job once the disruption is done
+   * @throws IOException if a network error occurred
+   * @throws NotFoundException if specified service does not exist
+   * @throws BadRequestException if invalid request body is provided
+   * @throws IllegalStateException if the same disruption is already running
+   * @throws InternalServerErrorException if internal server error occurred
+   */
+  @Override
+  public Future<DisruptionJob> submit(String service, String disruptionName,
+                                      @Nullable ActionArguments actionArguments) throws IOException {
+    return new JobFuture(executeActionWithArgument(service, disruptionName, actionArguments));
+  }
+
+  /**
+   * Gets the current state of a disruption job
+   *
+   * @param jobId The id of the job, as returned on submission
+   * @return {@link DisruptionJob}
+   * @throws IOException if a network error occurred
+   * @throws NotFoundException if the job does not exist
+   */
+  @Override
+  public DisruptionJob getJob(String jobId) throws IOException {
+    return getJob(jobId, 0);
+  }
+
+  /**
+   * Gets the state of a disruption job, letting the server hold the response until the job is done or the given
+   * number of seconds have passed
+   */
+  private DisruptionJob getJob(String jobId, long waitSeconds) throws IOException {
+    HttpResponse response;
+    if (waitSeconds <= 0) {
+      URL url = resolveURL(Constants.Server.API_VERSION_1_TOKEN, "jobs/" + jobId);
+      response = HttpRequests.execute(HttpRequest.get(url).build());
+    } else {
+      URL url = resolveURL(Constants.Server.API_VERSION_1_TOKEN,
+                           String.format("jobs/%s?waitFor=completion&timeout=%d", jobId, waitSeconds));
+      int readTimeoutMs = (int) TimeUnit.SECONDS.toMillis(waitSeconds + DEFAULT_TIMEOUT_SECONDS);
+      response = HttpRequests.execute(HttpRequest.get(url).build(),
+                                      new HttpRequestConfig((int) TimeUnit.SECONDS.toMillis(DEFAULT_TIMEOUT_SECONDS),
+                                                            readTimeoutMs));
+    }
+
+    if (response.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+      throw new NotFoundException(String.format("Job not found: %s", jobId));
+    }
+    return GSON.fromJson(response.getResponseBodyAsString(), DisruptionJob.class);
+  }
+
   @Override
   public void disruptAndWait(String service, String disruptionName, @Nullable ActionArguments actionArguments,
                              long timeout, TimeUnit timeoutUnit) throws Exception {
-    executeActionWithArgument(service, disruptionName, actionArguments);
-    long startTime = System.currentTimeMillis();
-    long timeoutMs = timeoutUnit.toMillis(timeout);
-    while (System.currentTimeMillis() - startTime < timeoutMs) {
-      if (!isActionRunning(service, disruptionName)) {
-        return;
-      }
-      TimeUnit.SECONDS.sleep(1);
-    }
-    throw new TimeoutException(String.format("Timeout occurred after %d %s", timeout, timeoutUnit.name()));
+    awaitJob(submit(service, disruptionName, actionArguments), timeout, timeoutUnit);
   }
 
   /**
@@ -244,8 +298,8 @@ public class ClusterDisruptorClient implements ClusterDisruptor {
     executeActionWithArgument(service, Constants.RemoteProcess.KILL, actionArguments);
   }
 
-  private void executeActionWithArgument(String service, String action, @Nullable ActionArguments actionArguments)
-    throws IOException {
+  private DisruptionJob executeActionWithArgument(String service, String action,
+                                                  @Nullable ActionArguments actionArguments) throws IOException {
     URL url = resolveURL(Constants.Server.API_VERSION_1_TOKEN, "services/" + service + "/" + action);
     HttpRequest request;
     if (actionArguments == null) {
@@ -261,9 +315,12 @@ public class ClusterDisruptorClient implements ClusterDisruptor {
       throw new NotFoundException(String.format("Service not found: %s", service));
     } else if (responseCode == HttpURLConnection.HTTP_BAD_REQUEST) {
       throw new BadRequestException(String.format("Bad Request. Reason: %s", responseMessage));
+    } else if (responseCode == HttpURLConnection.HTTP_CONFLICT) {
+      throw new IllegalStateException(String.format("Conflict. Reason: %s", responseMessage));
     } else if (responseCode == HttpURLConnection.HTTP_INTERNAL_ERROR) {
       throw new InternalServerErrorException(String.format("Internal Error. Reason: %s", responseMessage));
     }
+    return GSON.fromJson(response.getResponseBodyAsString(), DisruptionJob.class);
   }
 
   /**
@@ -334,16 +391,7 @@ public class ClusterDisruptorClient implements ClusterDisruptor {
   @Override
   public void startAndWait(String service, @Nullable ActionArguments actionArguments, long timeout,
                            TimeUnit timeoutUnit) throws IOException, InterruptedException, TimeoutException {
-    start(service, actionArguments);
-    long startTime = System.currentTimeMillis();
-    long timeoutMs = timeoutUnit.toMillis(timeout);
-    while (System.currentTimeMillis() - startTime < timeoutMs) {
-      if (!isStartRunning(service)) {
-        return;
-      }
-      TimeUnit.SECONDS.sleep(1);
-    }
-    throw new TimeoutException(String.format("Timeout occurred after %d %s", timeout, timeoutUnit.name()));
+    awaitJob(submit(service, Constants.RemoteProcess.START, actionArguments), timeout, timeoutUnit);
   }
 
   /**
@@ -361,16 +409,7 @@ public class ClusterDisruptorClient implements ClusterDisruptor {
   @Override
   public void restartAndWait(String service, @Nullable ActionArguments actionArguments, long timeout,
                              TimeUnit timeoutUnit) throws IOException, InterruptedException, TimeoutException {
-    restart(service, actionArguments);
-    long startTime = System.currentTimeMillis();
-    long timeoutMs = timeoutUnit.toMillis(timeout);
-    while (System.currentTimeMillis() - startTime < timeoutMs) {
-      if (!isRestartRunning(service)) {
-        return;
-      }
-      TimeUnit.SECONDS.sleep(1);
-    }
-    throw new TimeoutException(String.format("Timeout occurred after %d %s", timeout, timeoutUnit.name()));
+    awaitJob(submit(service, Constants.RemoteProcess.RESTART, actionArguments), timeout, timeoutUnit);
   }
 
   /**
@@ -388,16 +427,7 @@ public class ClusterDisruptorClient implements ClusterDisruptor {
   @Override
   public void stopAndWait(String service, @Nullable ActionArguments actionArguments, long timeout, TimeUnit timeoutUnit)
     throws IOException, InterruptedException, TimeoutException {
-    stop(service, actionArguments);
-    long startTime = System.currentTimeMillis();
-    long timeoutMs = timeoutUnit.toMillis(timeout);
-    while (System.currentTimeMillis() - startTime < timeoutMs) {
-      if (!isStopRunning(service)) {
-        return;
-      }
-      TimeUnit.SECONDS.sleep(1);
-    }
-    throw new TimeoutException(String.format("Timeout occurred after %d %s", timeout, timeoutUnit.name()));
+    awaitJob(submit(service, Constants.RemoteProcess.STOP, actionArguments), timeout, timeoutUnit);
   }
 
   /**
@@ -415,16 +445,7 @@ public class ClusterDisruptorClient implements ClusterDisruptor {
   @Override
   public void terminateAndWait(String service, @Nullable ActionArguments actionArguments, long timeout,
                                TimeUnit timeoutUnit) throws IOException, InterruptedException, TimeoutException {
-    terminate(service, actionArguments);
-    long startTime = System.currentTimeMillis();
-    long timeoutMs = timeoutUnit.toMillis(timeout);
-    while (System.currentTimeMillis() - startTime < timeoutMs) {
-      if (!isTerminateRunning(service)) {
-        return;
-      }
-      TimeUnit.SECONDS.sleep(1);
-    }
-    throw new TimeoutException(String.format("Timeout occurred after %d %s", timeout, timeoutUnit.name()));
+    awaitJob(submit(service, Constants.RemoteProcess.TERMINATE, actionArguments), timeout, timeoutUnit);
   }
 
   /**
@@ -442,16 +463,7 @@ public class ClusterDisruptorClient implements ClusterDisruptor {
   @Override
   public void killAndWait(String service, @Nullable ActionArguments actionArguments, long timeout, TimeUnit timeoutUnit)
     throws IOException, InterruptedException, TimeoutException {
-    kill(service, actionArguments);
-    long startTime = System.currentTimeMillis();
-    long timeoutMs = timeoutUnit.toMillis(timeout);
-    while (System.currentTimeMillis() - startTime < timeoutMs) {
-      if (!isKillRunning(service)) {
-        return;
-      }
-      TimeUnit.SECONDS.sleep(1);
-    }
-    throw new TimeoutException(String.format("Timeout occurred after %d %s", timeout, timeoutUnit.name()));
+    awaitJob(submit(service, Constants.RemoteProcess.KILL, actionArguments), timeout, timeoutUnit);
   }
 
   /**
@@ -468,7 +480,6 @@ public class ClusterDisruptorClient implements ClusterDisruptor {
 
   /**
    * Blocks execution until rolling restart is done on specified service.
-   * Rolling restart status is checked every 1 second
    *
    * @param service The name of the service to be queried
    * @param actionArguments Optional configuration for the rolling restart
@@ -478,10 +489,33 @@ public class ClusterDisruptorClient implements ClusterDisruptor {
   @Override
   public void rollingRestartAndWait(String service, @Nullable ActionArguments actionArguments)
     throws IOException, InterruptedException {
-    rollingRestart(service, actionArguments);
-    while (isRollingRestartRunning(service)) {
-      TimeUnit.SECONDS.sleep(1);
+    try {
+      submit(service, Constants.RemoteProcess.ROLLING_RESTART, actionArguments).get();
+    } catch (ExecutionException e) {
+      throw propagate(e);
+    }
+  }
+
+  private void awaitJob(Future<DisruptionJob> job, long timeout, TimeUnit timeoutUnit)
+    throws IOException, InterruptedException, TimeoutException {
+    try {
+      job.get(timeout, timeoutUnit);
+    } catch (TimeoutException e) {
+      throw new TimeoutException(String.format("Timeout occurred after %d %s", timeout, timeoutUnit.name()));
+    } catch (ExecutionException e) {
+      throw propagate(e);
+    }
+  }
+
+  private IOException propagate(ExecutionException e) {
+    Throwable cause = e.getCause();
+    if (cause instanceof IOException) {
+      return (IOException) cause;
+    }
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
     }
+    return new IOException(cause);
   }
 
   /**
@@ -548,4 +582,77 @@ public class ClusterDisruptorClient implements ClusterDisruptor {
   private URL resolveURL(String apiVersion, String path) throws MalformedURLException {
     return new URL(getURL() + String.format("/%s/%s", apiVersion, path));
   }
+
+  /**
+   * A {@link Future} of a job running on the Chaos Monkey server, completed once the server reports the job as done.
+   */
+  private final class JobFuture implements Future<DisruptionJob> {
+    private final String jobId;
+    private volatile DisruptionJob job;
+
+    JobFuture(DisruptionJob job) {
+      this.jobId = job.getId();
+      this.job = job;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      // Disruptions cannot be cancelled once submitted
+      return false;
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return false;
+    }
+
+    @Override
+    public boolean isDone() {
+      if (job.isDone()) {
+        return true;
+      }
+      try {
+        job = getJob(jobId);
+      } catch (IOException e) {
+        return false;
+      }
+      return job.isDone();
+    }
+
+    @Override
+    public DisruptionJob get() throws InterruptedException, ExecutionException {
+      while (!job.isDone()) {
+        poll(MAX_WAIT_SECONDS);
+      }
+      return job;
+    }
+
+    @Override
+    public DisruptionJob get(long timeout, TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+      long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+      while (!job.isDone()) {
+        long remainingMs = deadline - System.currentTimeMillis();
+        if (remainingMs <= 0) {
+          throw new TimeoutException(String.format("Job %s is not done after %d %s", jobId, timeout, unit.name()));
+        }
+        poll(Math.min(MAX_WAIT_SECONDS, TimeUnit.MILLISECONDS.toSeconds(remainingMs + 999)));
+      }
+      return job;
+    }
+
+    /**
+     * Waits on the server for the job to complete, for at most the given number of seconds.
+     */
+    private void poll(long waitSeconds) throws InterruptedException, ExecutionException {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      try {
+        job = getJob(jobId, waitSeconds);
+      } catch (IOException | RuntimeException e) {
+        throw new ExecutionException(e);
+      }
+    }
+  }
 }
@@ -58,6 +58,181 @@ public class Constants {
     );
   }
 
+  /**
+   * Constants related to {@code SshShell}.
+   */
+  public static final class Ssh {
+    public static final String KEEP_ALIVE_SECONDS = "ssh.session.keepAliveSeconds";
+    public static final String IDLE_TIMEOUT_SECONDS = "ssh.session.idleTimeoutSeconds";
+    public static final String CONNECT_TIMEOUT_SECONDS = "ssh.session.connectTimeoutSeconds";
+    public static final String MAX_CHANNELS = "ssh.session.maxChannels";
+    public static final String MAX_CONCURRENT_CONNECTS = "ssh.session.maxConcurrentConnects";
+    public static final String QUEUE_TIMEOUT_SECONDS = "ssh.session.queueTimeoutSeconds";
+    // Also read as {service}.ssh.execMode and ssh.execMode.{host}, which take precedence in that order
+    public static final String EXEC_MODE = "ssh.execMode";
+    public static final int DEFAULT_KEEP_ALIVE_SECONDS = 30;
+    public static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 300;
+    public static final int DEFAULT_CONNECT_TIMEOUT_SECONDS = 30;
+    // Default MaxSessions of OpenSSH
+    public static final int DEFAULT_MAX_CHANNELS = 10;
+    public static final int DEFAULT_MAX_CONCURRENT_CONNECTS = 16;
+    // Wait for a channel or a connect slot for as long as it takes
+    public static final int DEFAULT_QUEUE_TIMEOUT_SECONDS = 0;
+    public static final String DEFAULT_EXEC_MODE = "login";
+    public static final String WARMUP_ENABLED = "ssh.warmup.enabled";
+    public static final String WARMUP_TIMEOUT_SECONDS = "ssh.warmup.timeoutSeconds";
+    public static final int DEFAULT_WARMUP_TIMEOUT_SECONDS = 30;
+  }
+
+  /**
+   * Constants related to {@code LivenessProbe}, read with the name of the service as prefix.
+   */
+  public static final class Probe {
+    public static final String TYPE = "probe";
+    public static final String PORT = "probe.port";
+    public static final String URL = "probe.url";
+    public static final String TIMEOUT_MILLIS = "probe.timeoutMillis";
+    public static final String INIT = "init";
+    public static final String PID = "pid";
+    public static final String PROC = "proc";
+    public static final String TCP = "tcp";
+    public static final String HTTP = "http";
+    public static final int DEFAULT_TIMEOUT_MILLIS = 2000;
+  }
+
+  /**
+   * Constants related to the executor of remote tasks.
+   */
+  public static final class Executor {
+    public static final String MAX_THREADS = "remote.executor.maxThreads";
+    public static final String MAX_PER_HOST = "remote.executor.maxPerHost";
+    public static final int DEFAULT_MAX_THREADS = 64;
+    public static final int DEFAULT_MAX_PER_HOST = 8;
+  }
+
+  /**
+   * Constants related to {@code DisruptionService}.
+   */
+  public static final class Disruption {
+    public static final String MAX_CONCURRENT = "disruption.maxConcurrent";
+    public static final String FAN_OUT_MAX_THREADS = "disruption.fanOut.maxThreads";
+    public static final String FAN_OUT_MAX_PER_HOST = "disruption.fanOut.maxPerHost";
+    public static final int DEFAULT_MAX_CONCURRENT = 16;
+    public static final int DEFAULT_FAN_OUT_MAX_THREADS = 64;
+    public static final int DEFAULT_FAN_OUT_MAX_PER_HOST = 8;
+  }
+
+  /**
+   * Constants related to {@code BlastRadiusBudget}. The per-service limit is read with the name of the service as
+   * prefix.
+   */
+  public static final class Budget {
+    public static final String MAX_DOWN_PER_CLUSTER = "budget.maxDownPerCluster";
+    public static final String MAX_DOWN_PER_HOST = "budget.maxDownPerHost";
+    public static final String MAX_DOWN = "budget.maxDown";
+    public static final String DEFER_SECONDS = "budget.deferSeconds";
+    public static final int DEFAULT_DEFER_SECONDS = 300;
+  }
+
+  /**
+   * Constants related to {@code DisruptionScheduler}.
+   */
+  public static final class Scheduler {
+    public static final String TICK_MILLIS = "scheduler.tickMillis";
+    public static final String WHEEL_SIZE = "scheduler.wheelSize";
+    public static final String MAX_THREADS = "scheduler.maxThreads";
+    public static final String SEED = "scheduler.seed";
+    public static final int DEFAULT_TICK_MILLIS = 100;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+    public static final int DEFAULT_MAX_THREADS = 8;
+  }
+
+  /**
+   * Constants related to {@code ArrivalModel}, read with the name of the service as prefix.
+   */
+  public static final class Arrival {
+    public static final String TYPE = "arrival";
+    public static final String RATE_PER_NODE_HOUR = "arrival.ratePerNodeHour";
+    public static final String BURST_FACTOR = "arrival.burstFactor";
+    public static final String BURST_FRACTION = "arrival.burstFraction";
+    public static final String BURST_SECONDS = "arrival.burstSeconds";
+    public static final String FIXED = "fixed";
+    public static final String POISSON = "poisson";
+    public static final String BURST = "burst";
+    public static final double DEFAULT_BURST_FACTOR = 10;
+    public static final double DEFAULT_BURST_FRACTION = 0.05;
+    public static final double DEFAULT_BURST_SECONDS = 300;
+  }
+
+  /**
+   * Constants related to {@code AdaptiveController}, read with the name of the service as prefix.
+   */
+  public static final class Adaptive {
+    public static final String PROBE = "adaptive.probe";
+    public static final String ADDRESS = "adaptive.address";
+    public static final String URL = "adaptive.url";
+    public static final String TIMEOUT_MILLIS = "adaptive.timeoutMillis";
+    public static final String SLO_MILLIS = "adaptive.sloMillis";
+    public static final String PERCENTILE = "adaptive.percentile";
+    public static final String PROBE_INTERVAL_MILLIS = "adaptive.probeIntervalMillis";
+    public static final String WINDOW_SECONDS = "adaptive.windowSeconds";
+    public static final String DECISION_SECONDS = "adaptive.decisionSeconds";
+    public static final String INCREASE_STEP = "adaptive.increaseStep";
+    public static final String DECREASE_FACTOR = "adaptive.decreaseFactor";
+    public static final String TCP = "tcp";
+    public static final String HTTP = "http";
+    public static final int DEFAULT_TIMEOUT_MILLIS = 2000;
+    public static final double DEFAULT_PERCENTILE = 99;
+    public static final int DEFAULT_PROBE_INTERVAL_MILLIS = 1000;
+    public static final int DEFAULT_WINDOW_SECONDS = 60;
+    public static final int DEFAULT_DECISION_SECONDS = 10;
+    public static final double DEFAULT_INCREASE_STEP = 0.1;
+    public static final double DEFAULT_DECREASE_FACTOR = 0.5;
+  }
+
+  /**
+   * Constants related to {@code WorkloadGenerator}. The settings of a workload are read with workload.{name}. as
+   * prefix.
+   */
+  public static final class Workload {
+    public static final String NAMES = "workloads";
+    public static final String PREFIX = "workload.";
+    public static final String TYPE = "type";
+    public static final String URL = "url";
+    public static final String ADDRESS = "address";
+    public static final String RATE_PER_SECOND = "ratePerSecond";
+    public static final String TIMEOUT_MILLIS = "timeoutMillis";
+    public static final String MAX_IN_FLIGHT = "maxInFlight";
+    public static final String INTERVAL_SECONDS = "workload.intervalSeconds";
+    public static final String RETAINED_INTERVALS = "workload.retainedIntervals";
+    public static final String TCP = "tcp";
+    public static final String HTTP = "http";
+    public static final int DEFAULT_TIMEOUT_MILLIS = 2000;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1000;
+    public static final int DEFAULT_INTERVAL_SECONDS = 10;
+    public static final int DEFAULT_RETAINED_INTERVALS = 360;
+  }
+
+  /**
+   * Constants related to {@code RecoveryTracker}.
+   */
+  public static final class Recovery {
+    public static final String POLL_INTERVAL_MILLIS = "recovery.pollIntervalMillis";
+    public static final String TIMEOUT_SECONDS = "recovery.timeoutSeconds";
+    public static final int DEFAULT_POLL_INTERVAL_MILLIS = 1000;
+    public static final int DEFAULT_TIMEOUT_SECONDS = 3600;
+  }
+
+  /**
+   * Constants related to {@code StatusCache}.
+   */
+  public static final class StatusCache {
+    public static final String REFRESH_SECONDS = "status.cache.refreshSeconds";
+    public static final String JITTER = "status.cache.jitter";
+    public static final int DEFAULT_REFRESH_SECONDS = 30;
+    public static final double DEFAULT_JITTER = 0.1;
+  }
+
   /**
    * Constants related to Coopr, used for retrieving cluster information.
    */
@@ -17,7 +17,9 @@
 package io.cdap.chaosmonkey.proto;
 
 import java.util.Collection;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 /**
  * Interface with methods for disrupting services on a cluster
@@ -41,6 +43,25 @@ public interface ClusterDisruptor {
    */
   void disrupt(String service, String disruptionName, ActionArguments actionArguments) throws Exception;
 
+  /**
+   * Submits a disruption on the given service as a job
+   *
+   * @param service The name of the service to run the disruption against
+   * @param disruptionName The name of the disruption to be run
+   * @param actionArguments Optional, configuration for the action
+   * @return A {@link Future} that completes with the final state of the job once the disruption is done
+   */
+  Future<DisruptionJob> submit(String service, String disruptionName,
+                               @Nullable ActionArguments actionArguments) throws Exception;
+
+  /**
+   * Returns the current state of a disruption job
+   *
+   * @param jobId The id of the job, as returned on submission
+   * @return {@link DisruptionJob}
+   */
+  DisruptionJob getJob(String jobId) throws Exception;
+
   /**
    * Runs a disruption and wait for its completion
    *
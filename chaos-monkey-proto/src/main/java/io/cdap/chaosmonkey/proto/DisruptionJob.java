@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey.proto;
+
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Represents a single run of a disruption against a service
+ */
+public class DisruptionJob {
+
+  /**
+   * The states of a disruption job
+   */
+  public enum State {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+  }
+
+  private String id;
+  private String service;
+  private String action;
+  private State state;
+  private Long startTime;
+  private Long endTime;
+  private List<ProcessOutcome> outcomes;
+  private String message;
+
+  public DisruptionJob(String id, String service, String action, State state, @Nullable Long startTime,
+                       @Nullable Long endTime, List<ProcessOutcome> outcomes, @Nullable String message) {
+    this.id = id;
+    this.service = service;
+    this.action = action;
+    this.state = state;
+    this.startTime = startTime;
+    this.endTime = endTime;
+    this.outcomes = outcomes;
+    this.message = message;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getService() {
+    return service;
+  }
+
+  public String getAction() {
+    return action;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  /**
+   * Returns whether the job reached a terminal state
+   */
+  public boolean isDone() {
+    return state == State.SUCCEEDED || state == State.FAILED;
+  }
+
+  /**
+   * Returns the time at which the disruption started running in milliseconds since epoch, or {@code null} if it
+   * is still queued
+   */
+  @Nullable
+  public Long getStartTime() {
+    return startTime;
+  }
+
+  /**
+   * Returns the time at which the disruption completed in milliseconds since epoch, or {@code null} if it is not
+   * done yet
+   */
+  @Nullable
+  public Long getEndTime() {
+    return endTime;
+  }
+
+  /**
+   * Returns the outcome of the disruption on each process, empty until the job is done
+   */
+  public List<ProcessOutcome> getOutcomes() {
+    return outcomes;
+  }
+
+  /**
+   * Returns the reason the job failed, if it failed without an outcome for each process
+   */
+  @Nullable
+  public String getMessage() {
+    return message;
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey.proto;
+
+import javax.annotation.Nullable;
+
+/**
+ * Represents the outcome of a disruption on a single process
+ */
+public class ProcessOutcome {
+
+  /**
+   * The possible results of disrupting a process
+   */
+  public enum Result {
+    SUCCEEDED,
+    FAILED,
+    SKIPPED
+  }
+
+  private String address;
+  private String service;
+  private Result result;
+  private String message;
+
+  public ProcessOutcome(String address, String service, Result result, @Nullable String message) {
+    this.address = address;
+    this.service = service;
+    this.result = result;
+    this.message = message;
+  }
+
+  public String getAddress() {
+    return address;
+  }
+
+  public String getService() {
+    return service;
+  }
+
+  public Result getResult() {
+    return result;
+  }
+
+  @Nullable
+  public String getMessage() {
+    return message;
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.chaosmonkey.proto;
+
+/**
+ * Recovery times of a service after it was halted by a disruption
+ */
+public class RecoveryStats {
+  private String service;
+  private long recovered;
+  private long unrecovered;
+  private int watching;
+  private int stuck;
+  private LatencySummary timeToDetectDown;
+  private LatencySummary timeToRecover;
+
+  public RecoveryStats(String service, long recovered, long unrecovered, int watching, int stuck,
+                       LatencySummary timeToDetectDown, LatencySummary timeToRecover) {
+    this.service = service;
+    this.recovered = recovered;
+    this.unrecovered = unrecovered;
+    this.watching = watching;
+    this.stuck = stuck;
+    this.timeToDetectDown = timeToDetectDown;
+    this.timeToRecover = timeToRecover;
+  }
+
+  public String getService() {
+    return service;
+  }
+
+  /**
+   * Returns the number of halted processes that were seen running again
+   */
+  public long getRecovered() {
+    return recovered;
+  }
+
+  /**
+   * Returns the number of halted processes that were not running again before the recovery timeout
+   */
+  public long getUnrecovered() {
+    return unrecovered;
+  }
+
+  /**
+   * Returns the number of halted processes currently watched for recovery
+   */
+  public int getWatching() {
+    return watching;
+  }
+
+  /**
+   * Returns the number of watched processes still down past the recovery timeout, which keep counting as down
+   */
+  public int getStuck() {
+    return stuck;
+  }
+
+  /**
+   * Returns the time from the start of the disruption until the process was seen down
+   */
+  public LatencySummary getTimeToDetectDown() {
+    return timeToDetectDown;
+  }
+
+  /**
+   * Returns the time from the start of the disruption until the process was seen running again
+   */
+  public LatencySummary getTimeToRecover() {
+    return timeToRecover;
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.chaosmonkey.proto;
+
+import java.util.List;
+
+/**
+ * The requests sent by a workload during one interval, with the disruptions that were active at the time
+ */
+public class WorkloadInterval {
+  private long startTime;
+  private long endTime;
+  private long scheduled;
+  private long succeeded;
+  private long failed;
+  private double throughput;
+  private LatencySummary latencyMicros;
+  private LatencySummary serviceTimeMicros;
+  private List<String> disruptions;
+  private List<String> down;
+
+  public WorkloadInterval(long startTime, long endTime, long scheduled, long succeeded, long failed,
+                          LatencySummary latencyMicros, LatencySummary serviceTimeMicros, List<String> disruptions,
+                          List<String> down) {
+    this.startTime = startTime;
+    this.endTime = endTime;
+    this.scheduled = scheduled;
+    this.succeeded = succeeded;
+    this.failed = failed;
+    this.throughput = endTime > startTime ? succeeded * 1000d / (endTime - startTime) : 0;
+    this.latencyMicros = latencyMicros;
+    this.serviceTimeMicros = serviceTimeMicros;
+    this.disruptions = disruptions;
+    this.down = down;
+  }
+
+  /**
+   * Returns the start of the interval, in milliseconds since epoch
+   */
+  public long getStartTime() {
+    return startTime;
+  }
+
+  /**
+   * Returns the end of the interval, in milliseconds since epoch
+   */
+  public long getEndTime() {
+    return endTime;
+  }
+
+  /**
+   * Returns the number of requests due to be sent during the interval
+   */
+  public long getScheduled() {
+    return scheduled;
+  }
+
+  /**
+   * Returns the number of requests that completed successfully during the interval
+   */
+  public long getSucceeded() {
+    return succeeded;
+  }
+
+  /**
+   * Returns the number of requests that failed or timed out during the interval
+   */
+  public long getFailed() {
+    return failed;
+  }
+
+  /**
+   * Returns the number of successful requests per second
+   */
+  public double getThroughput() {
+    return throughput;
+  }
+
+  /**
+   * Returns the latency of successful requests, measured from the time they were due to be sent, so that requests
+   * delayed by earlier slow ones are not left out
+   */
+  public LatencySummary getLatencyMicros() {
+    return latencyMicros;
+  }
+
+  /**
+   * Returns the latency of successful requests, measured from the time they were actually sent
+   */
+  public LatencySummary getServiceTimeMicros() {
+    return serviceTimeMicros;
+  }
+
+  /**
+   * Returns the disruptions, as service/action, that were running at some point during the interval
+   */
+  public List<String> getDisruptions() {
+    return disruptions;
+  }
+
+  /**
+   * Returns the processes, as service@host, that were down because of a disruption at the end of the interval
+   */
+  public List<String> getDown() {
+    return down;
+  }
+}
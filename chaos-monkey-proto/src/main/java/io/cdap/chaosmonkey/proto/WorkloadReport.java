@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.chaosmonkey.proto;
+
+import java.util.List;
+
+/**
+ * The recent intervals of a workload sent by Chaos Monkey to a target
+ */
+public class WorkloadReport {
+  private String name;
+  private String target;
+  private double ratePerSecond;
+  private List<WorkloadInterval> intervals;
+
+  public WorkloadReport(String name, String target, double ratePerSecond, List<WorkloadInterval> intervals) {
+    this.name = name;
+    this.target = target;
+    this.ratePerSecond = ratePerSecond;
+    this.intervals = intervals;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the endpoint the requests are sent to
+   */
+  public String getTarget() {
+    return target;
+  }
+
+  /**
+   * Returns the number of requests sent per second, regardless of how fast the target responds
+   */
+  public double getRatePerSecond() {
+    return ratePerSecond;
+  }
+
+  /**
+   * Returns the retained intervals, oldest first
+   */
+  public List<WorkloadInterval> getIntervals() {
+    return intervals;
+  }
+}
@@ -16,37 +16,84 @@
 
 package io.cdap.chaosmonkey;
 
+import io.cdap.chaosmonkey.proto.ProcessOutcome;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 
 /**
- * A disruption that halts a running process
+ * A disruption that halts a running process. When recovery is tracked, each process is first reserved from the
+ * {@link BlastRadiusBudget} and left alone if the budget is exhausted; it is released once it recovers.
  */
 public abstract class AbstractHaltingDisruption implements Disruption {
   private static final Logger LOGGER = LoggerFactory.getLogger(AbstractHaltingDisruption.class);
 
+  private final boolean trackRecovery;
+
+  protected AbstractHaltingDisruption() {
+    this(true);
+  }
+
+  /**
+   * @param trackRecovery Whether halted processes are watched by the {@link RecoveryTracker}, otherwise the caller is
+   *                      responsible for reserving them from the {@link BlastRadiusBudget}
+   */
+  protected AbstractHaltingDisruption(boolean trackRecovery) {
+    this.trackRecovery = trackRecovery;
+  }
+
   @Override
-  public void disrupt(Collection<RemoteProcess> processes, @Nullable Map<String, String> serviceArguments)
-    throws Exception {
-    for (RemoteProcess process : processes) {
-      if (process.isRunning()) {
-        LOGGER.info("Attempting to {} {} on {}", this.getName(), process.getName(), process.getAddress());
-        this.action(process);
-
-        if (process.isRunning()) {
-          LOGGER.error("{} on {} is still running!", process.getName(), process.getAddress());
-        } else {
-          LOGGER.info("{} on {} is no longer running", process.getName(), process.getAddress());
-        }
-      } else {
-        LOGGER.info("{} on {} is not running, skipping {} attempt", process.getName(), process.getAddress(),
-                    this.getName());
+  public List<ProcessOutcome> disrupt(Collection<RemoteProcess> processes,
+                                      @Nullable Map<String, String> serviceArguments) throws Exception {
+    int parallelism = ProcessFanOut.getParallelism(serviceArguments);
+    return ProcessFanOut.run(processes, parallelism, new ProcessFanOut.ProcessAction() {
+      @Override
+      public ProcessOutcome.Result apply(RemoteProcess process) throws Exception {
+        return haltProcess(process);
+      }
+    });
+  }
+
+  private ProcessOutcome.Result haltProcess(RemoteProcess process) throws Exception {
+    if (!process.isRunning()) {
+      LOGGER.info("{} on {} is not running, skipping {} attempt", process.getName(), process.getAddress(),
+                  this.getName());
+      return ProcessOutcome.Result.SKIPPED;
+    }
+
+    BlastRadiusBudget.Reservation reservation = null;
+    if (trackRecovery) {
+      reservation = BlastRadiusBudget.getDefault().tryReserve(process);
+      if (reservation == null) {
+        return ProcessOutcome.Result.SKIPPED;
+      }
+    }
+
+    LOGGER.info("Attempting to {} {} on {}", this.getName(), process.getName(), process.getAddress());
+    long disruptedAt = System.currentTimeMillis();
+    boolean running = true;
+    try {
+      this.action(process);
+      running = process.isRunning();
+    } finally {
+      if (running && reservation != null) {
+        reservation.release();
       }
     }
+
+    if (running) {
+      LOGGER.error("{} on {} is still running!", process.getName(), process.getAddress());
+      return ProcessOutcome.Result.FAILED;
+    }
+    LOGGER.info("{} on {} is no longer running", process.getName(), process.getAddress());
+    if (reservation != null) {
+      RecoveryTracker.getDefault().watch(process, disruptedAt, System.currentTimeMillis(), reservation);
+    }
+    return ProcessOutcome.Result.SUCCEEDED;
   }
 
   protected abstract void action(RemoteProcess process) throws Exception;
@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Keeps the recent and running disruptions with the time they started and ended, so that measurements taken over a
+ * period of time can be matched with the disruptions that were running during that period.
+ */
+public class ActiveDisruptions {
+  private static final int MAX_RETAINED = 1000;
+  private static final ActiveDisruptions DEFAULT = new ActiveDisruptions();
+
+  private final Deque<Record> records;
+
+  public ActiveDisruptions() {
+    this.records = new ArrayDeque<>();
+  }
+
+  /**
+   * Returns the instance recording the disruptions run by this daemon.
+   */
+  public static ActiveDisruptions getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Records that a disruption started. The returned {@link Record} must be ended once the disruption is done.
+   *
+   * @param service The name of the disrupted service
+   * @param action The name of the disruption
+   */
+  public Record begin(String service, String action) {
+    Record record = new Record(service + "/" + action, System.currentTimeMillis());
+    synchronized (records) {
+      records.addLast(record);
+      // Running disruptions are kept whatever their number
+      while (records.size() > MAX_RETAINED && records.peekFirst().endTime != 0) {
+        records.removeFirst();
+      }
+    }
+    return record;
+  }
+
+  /**
+   * Returns the disruptions, as service/action, that were running at some point between the given times.
+   *
+   * @param fromMillis The start of the period, in milliseconds since epoch
+   * @param toMillis The end of the period, in milliseconds since epoch
+   */
+  public List<String> getActive(long fromMillis, long toMillis) {
+    Set<String> active = new TreeSet<>();
+    synchronized (records) {
+      for (Record record : records) {
+        long endTime = record.endTime;
+        if (record.startTime <= toMillis && (endTime == 0 || endTime >= fromMillis)) {
+          active.add(record.name);
+        }
+      }
+    }
+    return new ArrayList<>(active);
+  }
+
+  /**
+   * A disruption that started.
+   */
+  public static final class Record {
+    private final String name;
+    private final long startTime;
+    private volatile long endTime;
+
+    Record(String name, long startTime) {
+      this.name = name;
+      this.startTime = startTime;
+    }
+
+    /**
+     * Records that the disruption is done.
+     */
+    public void end() {
+      endTime = System.currentTimeMillis();
+    }
+  }
+}
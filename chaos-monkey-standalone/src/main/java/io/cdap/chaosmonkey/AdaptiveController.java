@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import com.google.common.util.concurrent.AbstractScheduledService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scales the scheduled disruptions of a service according to the latency of the system under test. A
+ * {@link LatencyProbe} is sampled into a {@link SlidingWindowHistogram}, and at every decision the latency at the
+ * configured percentile is compared to the objective: the scale is multiplied by the decrease factor when the
+ * objective is breached, and raised by the increase step, up to 1, when it is met. After a decrease the window is
+ * cleared, so that the next decision only looks at samples taken since backing off.
+ *
+ * A failed or timed out probe is recorded with the latency of the timeout.
+ */
+public class AdaptiveController extends AbstractScheduledService {
+  private static final Logger LOG = LoggerFactory.getLogger(AdaptiveController.class);
+  private static final int WINDOW_SLOTS = 10;
+  // Fewer samples than this do not say much about a high percentile
+  private static final int MIN_SAMPLES = 5;
+
+  private final String service;
+  private final LatencyProbe probe;
+  private final long sloMillis;
+  private final double percentile;
+  private final long probeIntervalMillis;
+  private final long timeoutMillis;
+  private final long decisionMillis;
+  private final double increaseStep;
+  private final double decreaseFactor;
+  private final SlidingWindowHistogram window;
+  private final MetricsRegistry.Counter probeFailures;
+  private volatile double scale;
+  private volatile long windowLatencyMillis;
+  private long nextDecisionMillis;
+
+  /**
+   * @param service The name of the service whose disruptions are scaled
+   * @param probe The probe measuring the latency of the system under test
+   * @param sloMillis The latency objective, in milliseconds
+   * @param percentile The percentile of the latency compared to the objective, between 0 and 100
+   * @param probeIntervalMillis The time between two samples of the probe
+   * @param timeoutMillis The latency recorded for a failed sample
+   * @param windowSeconds The length of the window of samples considered by a decision
+   * @param decisionSeconds The time between two decisions
+   * @param increaseStep The amount added to the scale when the objective is met
+   * @param decreaseFactor The factor, between 0 and 1, by which the scale is multiplied when the objective is breached
+   */
+  public AdaptiveController(String service, LatencyProbe probe, long sloMillis, double percentile,
+                            long probeIntervalMillis, long timeoutMillis, int windowSeconds, int decisionSeconds,
+                            double increaseStep, double decreaseFactor) {
+    if (sloMillis <= 0 || probeIntervalMillis <= 0 || decisionSeconds <= 0) {
+      throw new IllegalArgumentException(String.format("sloMillis, probeIntervalMillis and decisionSeconds must be "
+                                                         + "positive: %d, %d, %d", sloMillis, probeIntervalMillis,
+                                                       decisionSeconds));
+    }
+    if (!(percentile > 0 && percentile <= 100) || windowSeconds <= 0) {
+      throw new IllegalArgumentException(String.format("percentile must be in (0, 100] and windowSeconds positive: "
+                                                         + "%s, %d", percentile, windowSeconds));
+    }
+    if (!(increaseStep > 0) || !(decreaseFactor > 0 && decreaseFactor < 1)) {
+      throw new IllegalArgumentException(String.format("increaseStep must be positive and decreaseFactor between 0 "
+                                                         + "and 1: %s, %s", increaseStep, decreaseFactor));
+    }
+    this.service = service;
+    this.probe = probe;
+    this.sloMillis = sloMillis;
+    this.percentile = percentile;
+    this.probeIntervalMillis = probeIntervalMillis;
+    this.timeoutMillis = timeoutMillis;
+    this.decisionMillis = TimeUnit.SECONDS.toMillis(decisionSeconds);
+    this.increaseStep = increaseStep;
+    this.decreaseFactor = decreaseFactor;
+    this.window = new SlidingWindowHistogram(TimeUnit.SECONDS.toMillis(windowSeconds), WINDOW_SLOTS);
+    this.scale = 1;
+
+    MetricsRegistry metrics = MetricsRegistry.getDefault();
+    this.probeFailures = metrics.counter("chaosmonkey_adaptive_probe_failures_total",
+                                         "Number of failed samples of the latency probe", "service", service);
+    metrics.gauge("chaosmonkey_adaptive_scale", "Factor applied to the probabilities and node count of scheduled "
+                    + "disruptions", new MetricsRegistry.Gauge() {
+      @Override
+      public double getValue() {
+        return scale;
+      }
+    }, "service", service);
+    metrics.gauge("chaosmonkey_adaptive_window_latency_seconds", "Latency of the system under test at the "
+                    + "controlled percentile, as of the last decision", new MetricsRegistry.Gauge() {
+      @Override
+      public double getValue() {
+        return windowLatencyMillis / 1000d;
+      }
+    }, "service", service);
+  }
+
+  /**
+   * Returns the factor, between 0 and 1, applied to the probabilities and the maximum node count of the scheduled
+   * disruptions of the service.
+   */
+  public double getScale() {
+    return scale;
+  }
+
+  @Override
+  protected void startUp() throws Exception {
+    nextDecisionMillis = System.currentTimeMillis() + decisionMillis;
+    LOG.info("Adapting disruptions of {} to the p{} latency of {}, objective {} ms", service, percentile, probe,
+             sloMillis);
+  }
+
+  @Override
+  protected void runOneIteration() throws Exception {
+    long latencyMillis;
+    try {
+      latencyMillis = probe.measureMillis();
+    } catch (IOException e) {
+      LOG.debug("Latency probe of {} failed", service, e);
+      probeFailures.inc();
+      latencyMillis = timeoutMillis;
+    }
+    long nowMillis = System.currentTimeMillis();
+    window.record(latencyMillis, nowMillis);
+    if (nowMillis >= nextDecisionMillis) {
+      decide(nowMillis);
+      nextDecisionMillis = nowMillis + decisionMillis;
+    }
+  }
+
+  @Override
+  protected Scheduler scheduler() {
+    return Scheduler.newFixedDelaySchedule(0, probeIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void decide(long nowMillis) {
+    LatencyHistogram.Snapshot snapshot = window.snapshot(nowMillis);
+    String decision;
+    if (snapshot.getCount() < MIN_SAMPLES) {
+      decision = "hold";
+    } else {
+      windowLatencyMillis = snapshot.getValueAtPercentile(percentile);
+      double previous = scale;
+      if (windowLatencyMillis > sloMillis) {
+        scale = previous * decreaseFactor;
+        window.clear();
+        decision = "decrease";
+      } else if (previous < 1) {
+        scale = Math.min(1, previous + increaseStep);
+        decision = "increase";
+      } else {
+        decision = "hold";
+      }
+      if (scale != previous) {
+        LOG.info("Scaling disruptions of {} from {} to {}, p{} latency is {} ms for an objective of {} ms", service,
+                 String.format("%.3f", previous), String.format("%.3f", scale), percentile, windowLatencyMillis,
+                 sloMillis);
+      }
+    }
+    MetricsRegistry.getDefault().counter("chaosmonkey_adaptive_decisions_total",
+                                         "Number of decisions of the adaptive controller", "service", service,
+                                         "decision", decision).inc();
+  }
+}
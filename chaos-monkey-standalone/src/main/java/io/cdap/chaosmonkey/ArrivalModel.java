@@ -0,0 +1,220 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when the ticks of a {@link ScheduledDisruption} arrive. Models return the delays between consecutive ticks
+ * and are used by a single thread, so they may keep state between calls. Random models draw from the {@link Random}
+ * they are given, so that a schedule can be replayed from its seed.
+ *
+ * The long-run number of ticks per hour of every model is exactly {@link #getRatePerHour()}.
+ */
+public abstract class ArrivalModel {
+  private static final double NANOS_PER_HOUR = TimeUnit.HOURS.toNanos(1);
+
+  /**
+   * Returns the mean number of ticks per hour.
+   */
+  public abstract double getRatePerHour();
+
+  /**
+   * Returns the delay between the previous tick and the next one, in nanoseconds.
+   */
+  public abstract long nextDelayNanos();
+
+  /**
+   * Returns the delay between the start of the schedule and the first tick, in nanoseconds.
+   */
+  public long firstDelayNanos() {
+    return nextDelayNanos();
+  }
+
+  private static void checkRate(double ratePerHour) {
+    if (!(ratePerHour > 0) || Double.isInfinite(ratePerHour)) {
+      throw new IllegalArgumentException("ratePerHour must be greater than zero: " + ratePerHour);
+    }
+  }
+
+  /**
+   * Returns an exponentially distributed number with a mean of 1.
+   */
+  private static double exponential(Random random) {
+    // 1 - nextDouble() is in (0, 1], so the logarithm is finite
+    return -Math.log(1 - random.nextDouble());
+  }
+
+  /**
+   * Ticks at a fixed period, the first one right away.
+   */
+  public static final class FixedRate extends ArrivalModel {
+    private final long periodNanos;
+
+    /**
+     * @param period The time between two ticks
+     * @param unit The unit of the period
+     */
+    public FixedRate(long period, TimeUnit unit) {
+      if (period <= 0) {
+        throw new IllegalArgumentException("period must be greater than zero: " + period);
+      }
+      this.periodNanos = unit.toNanos(period);
+    }
+
+    @Override
+    public double getRatePerHour() {
+      return NANOS_PER_HOUR / periodNanos;
+    }
+
+    @Override
+    public long nextDelayNanos() {
+      return periodNanos;
+    }
+
+    @Override
+    public long firstDelayNanos() {
+      return 0;
+    }
+
+    @Override
+    public String toString() {
+      return "fixed every " + TimeUnit.NANOSECONDS.toSeconds(periodNanos) + "s";
+    }
+  }
+
+  /**
+   * Ticks as a Poisson process, with exponentially distributed delays between ticks.
+   */
+  public static final class Poisson extends ArrivalModel {
+    private final double ratePerHour;
+    private final double meanDelayNanos;
+    private final Random random;
+
+    /**
+     * @param ratePerHour The mean number of ticks per hour
+     * @param random The source of the delays
+     */
+    public Poisson(double ratePerHour, Random random) {
+      checkRate(ratePerHour);
+      this.ratePerHour = ratePerHour;
+      this.meanDelayNanos = NANOS_PER_HOUR / ratePerHour;
+      this.random = random;
+    }
+
+    @Override
+    public double getRatePerHour() {
+      return ratePerHour;
+    }
+
+    @Override
+    public long nextDelayNanos() {
+      return Math.round(exponential(random) * meanDelayNanos);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("poisson at %.3f/h", ratePerHour);
+    }
+  }
+
+  /**
+   * Ticks as a Markov-modulated Poisson process that alternates between a calm and a burst state. Ticks arrive
+   * burstFactor times faster in the burst state. The time spent in each state is exponentially distributed, such that
+   * bursts last burstSeconds on average and take up burstFraction of the time. The rates of the two states are
+   * derived from these so that the overall rate is ratePerHour.
+   */
+  public static final class Burst extends ArrivalModel {
+    private final double ratePerHour;
+    private final double burstFactor;
+    private final double burstFraction;
+    private final double calmRateNanos;
+    private final double burstRateNanos;
+    private final double meanCalmNanos;
+    private final double meanBurstNanos;
+    private final Random random;
+    private boolean initialized;
+    private boolean bursting;
+    private double remainingNanos;
+
+    /**
+     * @param ratePerHour The mean number of ticks per hour, over calm and burst periods
+     * @param burstFactor How many times faster ticks arrive during a burst, at least 1
+     * @param burstFraction The fraction of the time spent in bursts, from 0 (inclusive) to 1 (exclusive)
+     * @param burstSeconds The mean duration of a burst, in seconds
+     * @param random The source of the delays and of the state changes
+     */
+    public Burst(double ratePerHour, double burstFactor, double burstFraction, double burstSeconds, Random random) {
+      checkRate(ratePerHour);
+      if (!(burstFactor >= 1) || Double.isInfinite(burstFactor)) {
+        throw new IllegalArgumentException("burstFactor must be at least 1: " + burstFactor);
+      }
+      if (!(burstFraction >= 0 && burstFraction < 1)) {
+        throw new IllegalArgumentException("burstFraction must be between 0 and 1: " + burstFraction);
+      }
+      if (!(burstSeconds > 0)) {
+        throw new IllegalArgumentException("burstSeconds must be greater than zero: " + burstSeconds);
+      }
+      this.ratePerHour = ratePerHour;
+      this.burstFactor = burstFactor;
+      this.burstFraction = burstFraction;
+      // (1 - f) * calm + f * burstFactor * calm = rate
+      double calmRate = ratePerHour / (1 - burstFraction + burstFraction * burstFactor);
+      this.calmRateNanos = calmRate / NANOS_PER_HOUR;
+      this.burstRateNanos = calmRate * burstFactor / NANOS_PER_HOUR;
+      this.meanBurstNanos = burstSeconds * TimeUnit.SECONDS.toNanos(1);
+      // A calm period lasts long enough on average for bursts to take up burstFraction of the time
+      this.meanCalmNanos = burstFraction == 0
+        ? Double.POSITIVE_INFINITY : meanBurstNanos * (1 - burstFraction) / burstFraction;
+      this.random = random;
+    }
+
+    @Override
+    public double getRatePerHour() {
+      return ratePerHour;
+    }
+
+    @Override
+    public long nextDelayNanos() {
+      if (!initialized) {
+        // Start in the stationary distribution, so that the rate holds from the first tick
+        bursting = random.nextDouble() < burstFraction;
+        remainingNanos = exponential(random) * (bursting ? meanBurstNanos : meanCalmNanos);
+        initialized = true;
+      }
+      double delayNanos = 0;
+      while (true) {
+        double arrivalNanos = exponential(random) / (bursting ? burstRateNanos : calmRateNanos);
+        if (arrivalNanos <= remainingNanos) {
+          remainingNanos -= arrivalNanos;
+          return Math.round(delayNanos + arrivalNanos);
+        }
+        // Both states are memoryless, so the arrival can be drawn again after the state changes
+        delayNanos += remainingNanos;
+        bursting = !bursting;
+        remainingNanos = exponential(random) * (bursting ? meanBurstNanos : meanCalmNanos);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return String.format("burst at %.3f/h, %.1fx during %.1f%% of the time", ratePerHour, burstFactor,
+                           burstFraction * 100);
+    }
+  }
+}
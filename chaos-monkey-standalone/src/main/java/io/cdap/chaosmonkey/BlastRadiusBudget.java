@@ -0,0 +1,252 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import com.google.common.collect.ImmutableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * Limits how many processes may be down at once because of Chaos Monkey, per service, per host and across the
+ * cluster. Every disruption that takes a process down reserves it first and is turned away if any of the limits is
+ * reached. Halted processes stay reserved until the {@link RecoveryTracker} sees them running again, so the budget
+ * reflects what is actually down rather than what is being acted on. A limit that is not positive is unlimited.
+ *
+ * A process can only be reserved once at a time. Each reservation is released through the {@link Reservation}
+ * returned to its owner, so a disruption that was turned away can never release a process reserved by another one.
+ * Reservations only use atomic counters, so concurrent disruptions never block each other on the budget.
+ */
+public class BlastRadiusBudget {
+  private static final Logger LOG = LoggerFactory.getLogger(BlastRadiusBudget.class);
+  private static final long INITIAL_BACKOFF_MILLIS = 250;
+  private static final long MAX_BACKOFF_MILLIS = 5000;
+
+  private static volatile BlastRadiusBudget defaultBudget;
+
+  private final int maxDownPerCluster;
+  private final int maxDownPerHost;
+  private final Map<String, Integer> maxDownPerService;
+  private final long deferMillis;
+  private final AtomicInteger clusterDown;
+  private final ConcurrentMap<String, AtomicInteger> hostDown;
+  private final ConcurrentMap<String, AtomicInteger> serviceDown;
+  private final ConcurrentMap<String, Reservation> reserved;
+
+  /**
+   * @param maxDownPerCluster The maximum number of processes down across the cluster
+   * @param maxDownPerHost The maximum number of processes down on a single host
+   * @param maxDownPerService The maximum number of processes down for each service, services that are absent are
+   *                          unlimited
+   * @param deferSeconds The maximum time a deferred disruption waits for the budget
+   */
+  public BlastRadiusBudget(int maxDownPerCluster, int maxDownPerHost, Map<String, Integer> maxDownPerService,
+                           int deferSeconds) {
+    this.maxDownPerCluster = maxDownPerCluster;
+    this.maxDownPerHost = maxDownPerHost;
+    this.maxDownPerService = ImmutableMap.copyOf(maxDownPerService);
+    this.deferMillis = TimeUnit.SECONDS.toMillis(deferSeconds);
+    this.clusterDown = new AtomicInteger();
+    this.hostDown = new ConcurrentHashMap<>();
+    this.serviceDown = new ConcurrentHashMap<>();
+    this.reserved = new ConcurrentHashMap<>();
+    MetricsRegistry.getDefault().gauge("chaosmonkey_budget_down",
+                                       "Number of processes counted as down by the blast radius budget",
+                                       new MetricsRegistry.Gauge() {
+                                         @Override
+                                         public double getValue() {
+                                           return clusterDown.get();
+                                         }
+                                       });
+  }
+
+  /**
+   * Returns the budget consulted by disruptions, creating an unlimited one if none was set.
+   */
+  public static BlastRadiusBudget getDefault() {
+    BlastRadiusBudget budget = defaultBudget;
+    if (budget == null) {
+      synchronized (BlastRadiusBudget.class) {
+        budget = defaultBudget;
+        if (budget == null) {
+          budget = new BlastRadiusBudget(0, 0, Collections.<String, Integer>emptyMap(), 0);
+          defaultBudget = budget;
+        }
+      }
+    }
+    return budget;
+  }
+
+  /**
+   * Sets the budget consulted by disruptions.
+   */
+  public static synchronized void setDefault(BlastRadiusBudget budget) {
+    defaultBudget = budget;
+  }
+
+  /**
+   * Counts a process as down if that keeps every limit. A process that is already reserved, by this or another
+   * disruption, is turned away.
+   *
+   * @param process The process about to be taken down
+   * @return The reservation to release once the process is back, or {@code null} if the process is already reserved
+   *         or a limit would be exceeded
+   */
+  @Nullable
+  public Reservation tryReserve(RemoteProcess process) {
+    Reservation reservation = new Reservation(process);
+    if (reserved.putIfAbsent(reservation.key, reservation) != null) {
+      reject(process, "process");
+      return null;
+    }
+    AtomicInteger service = getCounter(serviceDown, process.getName());
+    Integer serviceLimit = maxDownPerService.get(process.getName());
+    if (!tryIncrement(service, serviceLimit == null ? 0 : serviceLimit)) {
+      reserved.remove(reservation.key, reservation);
+      reject(process, "service");
+      return null;
+    }
+    AtomicInteger host = getCounter(hostDown, process.getAddress());
+    if (!tryIncrement(host, maxDownPerHost)) {
+      service.decrementAndGet();
+      reserved.remove(reservation.key, reservation);
+      reject(process, "host");
+      return null;
+    }
+    if (!tryIncrement(clusterDown, maxDownPerCluster)) {
+      host.decrementAndGet();
+      service.decrementAndGet();
+      reserved.remove(reservation.key, reservation);
+      reject(process, "cluster");
+      return null;
+    }
+    return reservation;
+  }
+
+  /**
+   * Waits until a process can be counted as down, for disruptions that would rather be deferred than turned away.
+   *
+   * @param process The process about to be taken down
+   * @return The reservation to release once the process is back, or {@code null} if the process was still reserved
+   *         or the limits were still reached when the defer time ran out
+   */
+  @Nullable
+  public Reservation reserve(RemoteProcess process) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + deferMillis;
+    long backoff = INITIAL_BACKOFF_MILLIS;
+    Reservation reservation;
+    while ((reservation = tryReserve(process)) == null) {
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        return null;
+      }
+      LOG.debug("Deferring disruption of {} on {} until the blast radius budget allows it", process.getName(),
+                process.getAddress());
+      TimeUnit.MILLISECONDS.sleep(Math.min(backoff, remaining));
+      backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+    }
+    return reservation;
+  }
+
+  /**
+   * Returns the processes currently counted as down, as service@host.
+   */
+  public List<String> getReserved() {
+    return new ArrayList<>(new TreeSet<>(reserved.keySet()));
+  }
+
+  /**
+   * Returns the number of processes currently counted as down across the cluster.
+   */
+  public int getDown() {
+    return clusterDown.get();
+  }
+
+  private void reject(RemoteProcess process, String scope) {
+    if ("process".equals(scope)) {
+      LOG.info("Not disrupting {} on {}, it is already counted as down", process.getName(), process.getAddress());
+    } else {
+      LOG.warn("Not disrupting {} on {}, the {} blast radius budget is exhausted", process.getName(),
+               process.getAddress(), scope);
+    }
+    MetricsRegistry.getDefault().counter("chaosmonkey_budget_rejections_total",
+                                         "Number of disruptions of a process turned away by the blast radius budget",
+                                         "service", process.getName(), "scope", scope).inc();
+  }
+
+  private static boolean tryIncrement(AtomicInteger counter, int limit) {
+    while (true) {
+      int current = counter.get();
+      if (limit > 0 && current >= limit) {
+        return false;
+      }
+      if (counter.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private static AtomicInteger getCounter(ConcurrentMap<String, AtomicInteger> counters, String key) {
+    AtomicInteger counter = counters.get(key);
+    if (counter == null) {
+      AtomicInteger newCounter = new AtomicInteger();
+      counter = counters.putIfAbsent(key, newCounter);
+      if (counter == null) {
+        counter = newCounter;
+      }
+    }
+    return counter;
+  }
+
+  /**
+   * A process counted as down by the budget. Only the first call to {@link #release()} has an effect.
+   */
+  public final class Reservation {
+    private final RemoteProcess process;
+    private final String key;
+    private final AtomicBoolean released;
+
+    private Reservation(RemoteProcess process) {
+      this.process = process;
+      this.key = process.getName() + "@" + process.getAddress();
+      this.released = new AtomicBoolean();
+    }
+
+    /**
+     * No longer counts the process as down.
+     */
+    public void release() {
+      if (!released.compareAndSet(false, true) || !reserved.remove(key, this)) {
+        return;
+      }
+      getCounter(serviceDown, process.getName()).decrementAndGet();
+      getCounter(hostDown, process.getAddress()).decrementAndGet();
+      clusterDown.decrementAndGet();
+    }
+  }
+}
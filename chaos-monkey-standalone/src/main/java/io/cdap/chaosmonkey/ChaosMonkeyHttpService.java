@@ -22,6 +22,9 @@ import io.cdap.http.NettyHttpService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
+import java.util.Collections;
+
 /**
  * The {@code ChaosMonkeyHttpService} for ScheduledDisruption.
  */
@@ -30,9 +33,18 @@ public class ChaosMonkeyHttpService extends AbstractIdleService {
 
   private NettyHttpService httpService;
   private ChaosMonkeyService chaosMonkeyService;
+  private StatusCache statusCache;
+  private Collection<WorkloadGenerator> workloads;
+
+  public ChaosMonkeyHttpService(ChaosMonkeyService chaosMonkeyService, StatusCache statusCache) {
+    this(chaosMonkeyService, statusCache, Collections.<WorkloadGenerator>emptyList());
+  }
 
-  public ChaosMonkeyHttpService(ChaosMonkeyService chaosMonkeyService) {
+  public ChaosMonkeyHttpService(ChaosMonkeyService chaosMonkeyService, StatusCache statusCache,
+                                Collection<WorkloadGenerator> workloads) {
     this.chaosMonkeyService = chaosMonkeyService;
+    this.statusCache = statusCache;
+    this.workloads = workloads;
   }
 
   @Override
@@ -41,7 +53,9 @@ public class ChaosMonkeyHttpService extends AbstractIdleService {
 
     this.httpService = NettyHttpService.builder(ChaosMonkeyHttpService.class.getSimpleName())
       .setPort(Constants.Server.PORT)
-      .setHttpHandlers(new HttpHandler(chaosMonkeyService))
+      .setHttpHandlers(new HttpHandler(chaosMonkeyService, statusCache), new MetricsHandler(),
+                       new WorkloadHandler(workloads))
+      .setHandlerHooks(Collections.singletonList(new MetricsHandlerHook()))
       .setExceptionHandler(new HttpExceptionHandler())
       .build();
 
@@ -23,9 +23,14 @@ import io.cdap.chaosmonkey.proto.ClusterInfoCollector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 /**
  * The main runner for ScheduledDisruption.
@@ -35,7 +40,10 @@ public class ChaosMonkeyMain extends DaemonMain {
 
   private ChaosMonkeyService chaosMonkeyService;
   private ChaosMonkeyHttpService chaosMonkeyHttpService;
-  private Set<ScheduledDisruption> scheduledDisruptionSet;
+  private StatusCache statusCache;
+  private DisruptionScheduler disruptionScheduler;
+  private List<AdaptiveController> adaptiveControllers;
+  private List<WorkloadGenerator> workloads;
   private Configuration conf;
 
   public static void main(String[] args) throws Exception {
@@ -48,7 +56,18 @@ public class ChaosMonkeyMain extends DaemonMain {
     try {
       ClusterInfoCollector clusterInfoCollector = Clusters.createInitializedInfoCollector(conf);
       chaosMonkeyService = new ChaosMonkeyService(conf, clusterInfoCollector);
-      chaosMonkeyHttpService = new ChaosMonkeyHttpService(chaosMonkeyService);
+      statusCache = new StatusCache(chaosMonkeyService,
+                                    conf.getInt(Constants.StatusCache.REFRESH_SECONDS,
+                                                Constants.StatusCache.DEFAULT_REFRESH_SECONDS),
+                                    conf.getDouble(Constants.StatusCache.JITTER, Constants.StatusCache.DEFAULT_JITTER));
+      workloads = createWorkloads();
+      chaosMonkeyHttpService = new ChaosMonkeyHttpService(chaosMonkeyService, statusCache, workloads);
+      disruptionScheduler = new DisruptionScheduler(conf.getInt(Constants.Scheduler.TICK_MILLIS,
+                                                                Constants.Scheduler.DEFAULT_TICK_MILLIS),
+                                                    conf.getInt(Constants.Scheduler.WHEEL_SIZE,
+                                                                Constants.Scheduler.DEFAULT_WHEEL_SIZE),
+                                                    conf.getInt(Constants.Scheduler.MAX_THREADS,
+                                                                Constants.Scheduler.DEFAULT_MAX_THREADS));
 
     } catch (ClassNotFoundException e) {
       LOG.error("Unable to instantiate cluster info collector class: " +
@@ -60,22 +79,28 @@ public class ChaosMonkeyMain extends DaemonMain {
     }
   }
 
-  // TODO: make DisruptionScheduler to initialize Scheduled Disurptions
   private void startScheduledServices() {
-    scheduledDisruptionSet = new HashSet<>();
     Table<String, String, RemoteProcess> processTable = chaosMonkeyService.getProcessTable();
+    long seed = conf.getLong(Constants.Scheduler.SEED, new Random().nextLong());
+    LOG.info("Seed of scheduled disruptions: {}", seed);
+    Random seeds = new Random(seed);
+    adaptiveControllers = new ArrayList<>();
 
-    for (String service : processTable.columnKeySet()) {
+    // Services are visited in a stable order, so that each one gets the same random sequences for the same seed
+    for (String service : new TreeSet<>(processTable.columnKeySet())) {
+      Random arrivalRandom = new Random(seeds.nextLong());
+      Random disruptionRandom = new Random(seeds.nextLong());
+      int numNodes = processTable.column(service).size();
       boolean scheduled = true;
-      int interval;
+      ArrivalModel arrivalModel = null;
       try {
-        interval = conf.getInt(service + ".interval");
-        if (interval <= 0) {
-          throw new IllegalArgumentException();
-        }
-      } catch (IllegalArgumentException | NullPointerException e) {
-        LOG.warn("The following process does not have a valid interval and will be skipped: {}", service);
-        interval = 0; // To avoid variable not initialized error, will not be used
+        arrivalModel = createArrivalModel(service, numNodes, arrivalRandom);
+      } catch (NullPointerException e) {
+        LOG.warn("The following process does not have an interval or arrival rate and will be skipped: {}", service);
+        scheduled = false;
+      } catch (IllegalArgumentException e) {
+        LOG.warn("The following process does not have a valid arrival model and will be skipped: {}. {}",
+                 service, e.getMessage());
         scheduled = false;
       }
 
@@ -96,35 +121,188 @@ public class ChaosMonkeyMain extends DaemonMain {
         scheduled = false;
       }
 
+      AdaptiveController controller = null;
+      if (scheduled) {
+        try {
+          controller = createAdaptiveController(service);
+        } catch (IllegalArgumentException | NullPointerException e) {
+          LOG.warn("The following process does not have a valid adaptive configuration and will be skipped: {}. {}",
+                   service, e.getMessage());
+          scheduled = false;
+        }
+      }
+
       if (scheduled) {
         LOG.info("Adding the following process to Chaos Monkey: {}", service);
         ScheduledDisruption scheduledDisruption = new ScheduledDisruption(new ArrayList<>(processTable.column(service)
                                                                                             .values()), stopProbability,
-                                                                          killProbability, restartProbability, interval,
-                                                                          minNodesPerIteration, maxNodesPerIteration);
-        scheduledDisruptionSet.add(scheduledDisruption);
+                                                                          killProbability, restartProbability,
+                                                                          arrivalModel, minNodesPerIteration,
+                                                                          maxNodesPerIteration, disruptionRandom,
+                                                                          controller);
+        disruptionScheduler.schedule(scheduledDisruption);
+        if (controller != null) {
+          adaptiveControllers.add(controller);
+        }
       }
     }
   }
 
+  /**
+   * Creates the arrival model of a service. The rate is {service}.arrival.ratePerNodeHour times the number of nodes
+   * if set, otherwise one tick every {service}.interval seconds.
+   */
+  private ArrivalModel createArrivalModel(String service, int numNodes, Random random) {
+    String type = conf.get(service + "." + Constants.Arrival.TYPE, Constants.Arrival.FIXED);
+    double ratePerNodeHour = conf.getDouble(service + "." + Constants.Arrival.RATE_PER_NODE_HOUR, 0);
+    if (Constants.Arrival.FIXED.equals(type) && ratePerNodeHour <= 0) {
+      return new ArrivalModel.FixedRate(conf.getInt(service + ".interval"), TimeUnit.SECONDS);
+    }
+    double ratePerHour = ratePerNodeHour > 0
+      ? ratePerNodeHour * numNodes : (double) TimeUnit.HOURS.toSeconds(1) / conf.getInt(service + ".interval");
+    switch (type) {
+      case Constants.Arrival.FIXED:
+        return new ArrivalModel.FixedRate(Math.round(TimeUnit.HOURS.toNanos(1) / ratePerHour), TimeUnit.NANOSECONDS);
+      case Constants.Arrival.POISSON:
+        return new ArrivalModel.Poisson(ratePerHour, random);
+      case Constants.Arrival.BURST:
+        return new ArrivalModel.Burst(ratePerHour,
+                                      conf.getDouble(service + "." + Constants.Arrival.BURST_FACTOR,
+                                                     Constants.Arrival.DEFAULT_BURST_FACTOR),
+                                      conf.getDouble(service + "." + Constants.Arrival.BURST_FRACTION,
+                                                     Constants.Arrival.DEFAULT_BURST_FRACTION),
+                                      conf.getDouble(service + "." + Constants.Arrival.BURST_SECONDS,
+                                                     Constants.Arrival.DEFAULT_BURST_SECONDS),
+                                      random);
+      default:
+        throw new IllegalArgumentException(String.format("Unknown arrival model %s for %s", type, service));
+    }
+  }
+
+  /**
+   * Creates the controller scaling the disruptions of a service, or returns {@code null} if {service}.adaptive.probe
+   * is not set.
+   */
+  @Nullable
+  private AdaptiveController createAdaptiveController(String service) {
+    String type = conf.get(service + "." + Constants.Adaptive.PROBE);
+    if (type == null) {
+      return null;
+    }
+    int timeoutMillis = conf.getInt(service + "." + Constants.Adaptive.TIMEOUT_MILLIS,
+                                    Constants.Adaptive.DEFAULT_TIMEOUT_MILLIS);
+    LatencyProbe probe;
+    switch (type) {
+      case Constants.Adaptive.TCP:
+        String address = conf.get(service + "." + Constants.Adaptive.ADDRESS);
+        int separator = address == null ? -1 : address.lastIndexOf(':');
+        if (separator < 0) {
+          throw new IllegalArgumentException(String.format("The tcp latency probe of %s requires %s.%s as host:port",
+                                                           service, service, Constants.Adaptive.ADDRESS));
+        }
+        probe = new LatencyProbe.Tcp(address.substring(0, separator),
+                                     Integer.parseInt(address.substring(separator + 1)), timeoutMillis);
+        break;
+      case Constants.Adaptive.HTTP:
+        String url = conf.get(service + "." + Constants.Adaptive.URL);
+        if (url == null) {
+          throw new IllegalArgumentException(String.format("The http latency probe of %s requires %s.%s",
+                                                           service, service, Constants.Adaptive.URL));
+        }
+        probe = new LatencyProbe.Http(url, timeoutMillis);
+        break;
+      default:
+        throw new IllegalArgumentException(String.format("Unknown latency probe %s for %s", type, service));
+    }
+    return new AdaptiveController(service, probe, conf.getLong(service + "." + Constants.Adaptive.SLO_MILLIS),
+                                  conf.getDouble(service + "." + Constants.Adaptive.PERCENTILE,
+                                                 Constants.Adaptive.DEFAULT_PERCENTILE),
+                                  conf.getInt(service + "." + Constants.Adaptive.PROBE_INTERVAL_MILLIS,
+                                              Constants.Adaptive.DEFAULT_PROBE_INTERVAL_MILLIS),
+                                  timeoutMillis,
+                                  conf.getInt(service + "." + Constants.Adaptive.WINDOW_SECONDS,
+                                              Constants.Adaptive.DEFAULT_WINDOW_SECONDS),
+                                  conf.getInt(service + "." + Constants.Adaptive.DECISION_SECONDS,
+                                              Constants.Adaptive.DEFAULT_DECISION_SECONDS),
+                                  conf.getDouble(service + "." + Constants.Adaptive.INCREASE_STEP,
+                                                 Constants.Adaptive.DEFAULT_INCREASE_STEP),
+                                  conf.getDouble(service + "." + Constants.Adaptive.DECREASE_FACTOR,
+                                                 Constants.Adaptive.DEFAULT_DECREASE_FACTOR));
+  }
+
+  /**
+   * Creates the workloads listed in the workloads configuration.
+   */
+  private List<WorkloadGenerator> createWorkloads() throws MalformedURLException {
+    List<WorkloadGenerator> generators = new ArrayList<>();
+    int intervalSeconds = conf.getInt(Constants.Workload.INTERVAL_SECONDS,
+                                      Constants.Workload.DEFAULT_INTERVAL_SECONDS);
+    int retainedIntervals = conf.getInt(Constants.Workload.RETAINED_INTERVALS,
+                                        Constants.Workload.DEFAULT_RETAINED_INTERVALS);
+    for (String name : conf.getTrimmedStrings(Constants.Workload.NAMES)) {
+      String prefix = Constants.Workload.PREFIX + name + ".";
+      String type = conf.get(prefix + Constants.Workload.TYPE, Constants.Workload.HTTP);
+      double ratePerSecond = conf.getDouble(prefix + Constants.Workload.RATE_PER_SECOND, 0);
+      int timeoutMillis = conf.getInt(prefix + Constants.Workload.TIMEOUT_MILLIS,
+                                      Constants.Workload.DEFAULT_TIMEOUT_MILLIS);
+      int maxInFlight = conf.getInt(prefix + Constants.Workload.MAX_IN_FLIGHT,
+                                    Constants.Workload.DEFAULT_MAX_IN_FLIGHT);
+      switch (type) {
+        case Constants.Workload.TCP:
+          String address = conf.get(prefix + Constants.Workload.ADDRESS);
+          int separator = address == null ? -1 : address.lastIndexOf(':');
+          if (separator < 0) {
+            throw new IllegalArgumentException(String.format("The tcp workload %s requires %s%s as host:port",
+                                                             name, prefix, Constants.Workload.ADDRESS));
+          }
+          generators.add(WorkloadGenerator.tcp(name, address.substring(0, separator),
+                                               Integer.parseInt(address.substring(separator + 1)), ratePerSecond,
+                                               timeoutMillis, maxInFlight, intervalSeconds, retainedIntervals));
+          break;
+        case Constants.Workload.HTTP:
+          String url = conf.get(prefix + Constants.Workload.URL);
+          if (url == null) {
+            throw new IllegalArgumentException(String.format("The http workload %s requires %s%s",
+                                                             name, prefix, Constants.Workload.URL));
+          }
+          generators.add(WorkloadGenerator.http(name, new URL(url), ratePerSecond, timeoutMillis, maxInFlight,
+                                                intervalSeconds, retainedIntervals));
+          break;
+        default:
+          throw new IllegalArgumentException(String.format("Unknown type %s for workload %s", type, name));
+      }
+    }
+    return generators;
+  }
+
   @Override
   public void start() throws Exception {
     chaosMonkeyService.startAsync();
     chaosMonkeyHttpService.startAsync();
     chaosMonkeyService.awaitRunning();
+    for (WorkloadGenerator workload : workloads) {
+      workload.startAsync();
+    }
+    statusCache.startAsync();
     startScheduledServices();
-    for (ScheduledDisruption scheduledDisruption : scheduledDisruptionSet) {
-      scheduledDisruption.startAsync();
+    for (AdaptiveController controller : adaptiveControllers) {
+      controller.startAsync();
     }
+    disruptionScheduler.startAsync();
   }
 
   @Override
   public void stop() {
     try {
       chaosMonkeyHttpService.shutDown();
+      statusCache.stopAsync();
       chaosMonkeyService.shutDown();
-      for (ScheduledDisruption scheduledDisruption : scheduledDisruptionSet) {
-        scheduledDisruption.stopAsync();
+      disruptionScheduler.stopAsync();
+      for (AdaptiveController controller : adaptiveControllers) {
+        controller.stopAsync();
+      }
+      for (WorkloadGenerator workload : workloads) {
+        workload.stopAsync();
       }
     } catch (Exception e) {
       LOG.warn("Exception when trying to shut down Chaos Monkey.", e);
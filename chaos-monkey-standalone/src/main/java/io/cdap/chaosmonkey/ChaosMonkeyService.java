@@ -16,13 +16,14 @@
 
 package io.cdap.chaosmonkey;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Table;
 import com.google.common.util.concurrent.AbstractIdleService;
-import com.jcraft.jsch.JSchException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.cdap.chaosmonkey.common.Constants;
 import io.cdap.chaosmonkey.common.conf.Configuration;
 import io.cdap.chaosmonkey.proto.ActionArguments;
@@ -30,7 +31,9 @@ import io.cdap.chaosmonkey.proto.ActionStatus;
 import io.cdap.chaosmonkey.proto.ClusterDisruptor;
 import io.cdap.chaosmonkey.proto.ClusterInfoCollector;
 import io.cdap.chaosmonkey.proto.ClusterNode;
+import io.cdap.chaosmonkey.proto.DisruptionJob;
 import io.cdap.chaosmonkey.proto.NodeStatus;
+import io.cdap.chaosmonkey.proto.RecoveryStats;
 import io.cdap.chaosmonkey.proto.ServiceInfo;
 import io.cdap.chaosmonkey.proto.ServiceStatus;
 import org.slf4j.Logger;
@@ -39,8 +42,12 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -57,10 +64,15 @@ import javax.ws.rs.NotFoundException;
  */
 public class ChaosMonkeyService extends AbstractIdleService implements ClusterDisruptor {
   private static final Logger LOG = LoggerFactory.getLogger(ChaosMonkeyService.class);
+  private static final int STARTUP_THREADS = 16;
 
   private DisruptionService disruptionService;
   private final Table<String, String, RemoteProcess> processTable;
-  private ExecutorService executor;
+  private LaneExecutor executor;
+  private SshSessionPool sessionPool;
+  private SshContext sshContext;
+  private RecoveryTracker recoveryTracker;
+  private volatile int unreachableHosts;
   private final Configuration conf;
   private final ClusterInfoCollector clusterInfoCollector;
 
@@ -70,23 +82,63 @@ public class ChaosMonkeyService extends AbstractIdleService implements ClusterDi
     this.clusterInfoCollector = clusterInfoCollector;
   }
 
-  private SshShell resolveSshShell(Configuration conf, String ipAddress) throws JSchException {
-    String username = conf.get("username", System.getProperty("user.name"));
-    String privateKey = conf.get("privateKey");
-    String keyPassphrase = conf.get("keyPassphrase");
+  private SshShell resolveSshShell(Configuration conf, String service, String ipAddress) {
+    return sshContext.getShell(ipAddress, resolveExecMode(conf, service, ipAddress));
+  }
 
-    SshShell sshShell;
-    if (privateKey != null) {
-      if (keyPassphrase != null) {
-        sshShell = new SshShell(username, ipAddress, privateKey, keyPassphrase);
-      } else {
-        sshShell = new SshShell(username, ipAddress, privateKey);
-      }
-    } else {
-      sshShell = new SshShell(username, ipAddress);
+  private ExecMode resolveExecMode(Configuration conf, String service, String ipAddress) {
+    String execMode = conf.get(service + "." + Constants.Ssh.EXEC_MODE);
+    if (execMode == null) {
+      execMode = conf.get(Constants.Ssh.EXEC_MODE + "." + ipAddress);
     }
+    if (execMode == null) {
+      execMode = conf.get(Constants.Ssh.EXEC_MODE, Constants.Ssh.DEFAULT_EXEC_MODE);
+    }
+    return ExecMode.fromString(execMode);
+  }
 
-    return sshShell;
+  /**
+   * Returns the {@link LivenessProbe} configured for a service. Services with a pid file are probed with the pid
+   * file unless configured otherwise, others fall back to the default of their {@link RemoteProcess}.
+   */
+  @Nullable
+  private LivenessProbe resolveLivenessProbe(Configuration conf, String service, @Nullable String pidPath,
+                                            boolean customIsRunning) {
+    String type = conf.get(service + "." + Constants.Probe.TYPE);
+    if (type == null) {
+      if (pidPath == null || customIsRunning) {
+        return null;
+      }
+      type = Constants.Probe.PID;
+    }
+    int timeoutMillis = conf.getInt(service + "." + Constants.Probe.TIMEOUT_MILLIS,
+                                    Constants.Probe.DEFAULT_TIMEOUT_MILLIS);
+    switch (type) {
+      case Constants.Probe.INIT:
+        return new LivenessProbe.InitScript();
+      case Constants.Probe.PID:
+      case Constants.Probe.PROC:
+        if (pidPath == null) {
+          throw new IllegalArgumentException(String.format("The %s probe of %s requires a pidPath", type, service));
+        }
+        return Constants.Probe.PID.equals(type) ? new LivenessProbe.Pid() : new LivenessProbe.Proc();
+      case Constants.Probe.TCP:
+        String port = conf.get(service + "." + Constants.Probe.PORT);
+        if (port == null) {
+          throw new IllegalArgumentException(String.format("The tcp probe of %s requires %s.%s",
+                                                           service, service, Constants.Probe.PORT));
+        }
+        return new LivenessProbe.Tcp(Integer.parseInt(port), timeoutMillis);
+      case Constants.Probe.HTTP:
+        String url = conf.get(service + "." + Constants.Probe.URL);
+        if (url == null) {
+          throw new IllegalArgumentException(String.format("The http probe of %s requires %s.%s",
+                                                           service, service, Constants.Probe.URL));
+        }
+        return new LivenessProbe.Http(url, timeoutMillis);
+      default:
+        throw new IllegalArgumentException(String.format("Unknown probe for %s: %s", service, type));
+    }
   }
 
   /**
@@ -95,11 +147,13 @@ public class ChaosMonkeyService extends AbstractIdleService implements ClusterDi
    * @param service Name of the processes to be disrupted
    * @param disruptionName Disruption to be executed
    * @param actionArguments Configuration for the action to be run
+   * @return {@link DisruptionJobFuture} tracking the action, completed when the action is done
    * @throws BadRequestException if nodes, count, or percentage contain invalid values
    * @throws NotFoundException if service or action are not found
    * @throws IllegalStateException if the same disruption is already running
    */
-  public void executeAction(String service, String disruptionName, @Nullable ActionArguments actionArguments) {
+  public DisruptionJobFuture executeAction(String service, String disruptionName,
+                                           @Nullable ActionArguments actionArguments) {
     Collection<RemoteProcess> processes = processTable.column(service).values();
     if (actionArguments == null) {
       actionArguments = new ActionArguments();
@@ -135,8 +189,43 @@ public class ChaosMonkeyService extends AbstractIdleService implements ClusterDi
     if (processes.size() == 0) {
       throw new NotFoundException("Unknown service: " + service);
     }
-    
-    disruptionService.disrupt(disruptionName, service, processes, actionArguments.getServiceArguments());
+
+    return disruptionService.disrupt(disruptionName, service, processes, actionArguments.getServiceArguments());
+  }
+
+  /**
+   * Get the current state of a disruption job
+   *
+   * @param jobId the id of the job
+   * @return {@link DisruptionJob}
+   * @throws NotFoundException if the job does not exist
+   */
+  @Override
+  public DisruptionJob getJob(String jobId) {
+    return disruptionService.getJob(jobId).getJob();
+  }
+
+  /**
+   * Get the job tracking a disruption
+   *
+   * @param jobId the id of the job
+   * @return {@link DisruptionJobFuture}
+   * @throws NotFoundException if the job does not exist
+   */
+  public DisruptionJobFuture getJobFuture(String jobId) {
+    return disruptionService.getJob(jobId);
+  }
+
+  /**
+   * Get the job of the most recent run of a disruption
+   *
+   * @param service the name of the service
+   * @param action the name of the action
+   * @return {@link DisruptionJobFuture}, or {@code null} if the action never ran
+   */
+  @Nullable
+  public DisruptionJobFuture getLatestJob(String service, String action) {
+    return disruptionService.getLatestJob(service, action);
   }
 
   /**
@@ -164,19 +253,8 @@ public class ChaosMonkeyService extends AbstractIdleService implements ClusterDi
     if (remoteProcesses.isEmpty()) {
       throw new NotFoundException("Unknown host: " + hostname);
     }
-    List<Status> threads = new ArrayList<>();
-    for (RemoteProcess remoteProcess : processTable.row(hostname).values()) {
-      threads.add(new Status(remoteProcess));
-    }
-    List<Future<ServiceStatus>> results = executor.invokeAll(threads);
-    List<ServiceStatus> statuses = new ArrayList<>();
-
-    for (Future<ServiceStatus> result : results) {
-      statuses.add(result.get());
-    }
-
-    NodeStatus status = new NodeStatus(hostname, statuses);
-    return status;
+    List<ServiceStatus> statuses = executor.submit(hostname, new HostStatusProbe(hostname, remoteProcesses)).get();
+    return new NodeStatus(hostname, statuses);
   }
 
   /**
@@ -187,25 +265,42 @@ public class ChaosMonkeyService extends AbstractIdleService implements ClusterDi
    * @throws InterruptedException
    */
   public Collection<NodeStatus> getNodeStatuses() throws ExecutionException, InterruptedException {
-    List<Status> threads = new ArrayList<>();
+    List<String> addresses = new ArrayList<>(processTable.rowKeySet());
+    List<Future<List<ServiceStatus>>> results = new ArrayList<>();
+    for (String address : addresses) {
+      results.add(executor.submit(address, new HostStatusProbe(address, processTable.row(address).values())));
+    }
     List<NodeStatus> statuses = new ArrayList<>();
 
-    for (RemoteProcess remoteProcess : processTable.values()) {
-      threads.add(new Status(remoteProcess));
+    for (int i = 0; i < addresses.size(); i++) {
+      statuses.add(new NodeStatus(addresses.get(i), results.get(i).get()));
     }
-    List<Future<ServiceStatus>> results = executor.invokeAll(threads);
-    Multimap<String, ServiceStatus> serviceMap = HashMultimap.create();
 
-    for (Future<ServiceStatus> result : results) {
-      ServiceStatus status = result.get();
-      serviceMap.put(status.getAddress(), status);
-    }
+    return statuses;
+  }
 
-    for (String address : serviceMap.keySet()) {
-      statuses.add(new NodeStatus(address, serviceMap.get(address)));
-    }
+  /**
+   * Get the recovery times of every service that was halted by a disruption
+   *
+   * @return List of {@link RecoveryStats}
+   */
+  public List<RecoveryStats> getRecoveryStats() {
+    return recoveryTracker.getStats();
+  }
 
-    return statuses;
+  /**
+   * Get the recovery times of a service
+   *
+   * @param service the name of the service
+   * @return {@link RecoveryStats}
+   * @throws NotFoundException if the service was never halted
+   */
+  public RecoveryStats getRecoveryStats(String service) {
+    RecoveryStats stats = recoveryTracker.getStats(service);
+    if (stats == null) {
+      throw new NotFoundException("No recovery recorded for service: " + service);
+    }
+    return stats;
   }
 
   public Table<String, String, RemoteProcess> getProcessTable() {
@@ -214,6 +309,25 @@ public class ChaosMonkeyService extends AbstractIdleService implements ClusterDi
 
   @Override
   protected void startUp() throws Exception {
+    this.sessionPool = new SshSessionPool(conf.getInt(Constants.Ssh.KEEP_ALIVE_SECONDS,
+                                                      Constants.Ssh.DEFAULT_KEEP_ALIVE_SECONDS),
+                                          conf.getInt(Constants.Ssh.IDLE_TIMEOUT_SECONDS,
+                                                      Constants.Ssh.DEFAULT_IDLE_TIMEOUT_SECONDS),
+                                          conf.getInt(Constants.Ssh.CONNECT_TIMEOUT_SECONDS,
+                                                      Constants.Ssh.DEFAULT_CONNECT_TIMEOUT_SECONDS),
+                                          conf.getInt(Constants.Ssh.MAX_CHANNELS, Constants.Ssh.DEFAULT_MAX_CHANNELS),
+                                          conf.getInt(Constants.Ssh.MAX_CONCURRENT_CONNECTS,
+                                                      Constants.Ssh.DEFAULT_MAX_CONCURRENT_CONNECTS),
+                                          conf.getInt(Constants.Ssh.QUEUE_TIMEOUT_SECONDS,
+                                                      Constants.Ssh.DEFAULT_QUEUE_TIMEOUT_SECONDS));
+    this.sshContext = new SshContext(conf.get("username", System.getProperty("user.name")), conf.get("privateKey"),
+                                     conf.get("keyPassphrase"), sessionPool);
+    this.recoveryTracker = new RecoveryTracker(conf.getInt(Constants.Recovery.POLL_INTERVAL_MILLIS,
+                                                           Constants.Recovery.DEFAULT_POLL_INTERVAL_MILLIS),
+                                               conf.getInt(Constants.Recovery.TIMEOUT_SECONDS,
+                                                           Constants.Recovery.DEFAULT_TIMEOUT_SECONDS));
+    RecoveryTracker.setDefault(recoveryTracker);
+    long startNanos = System.nanoTime();
     Multimap<String, String> processToIp = HashMultimap.create();
     Table<String, String, Disruption> disruptionTable = HashBasedTable.create();
 
@@ -223,55 +337,235 @@ public class ChaosMonkeyService extends AbstractIdleService implements ClusterDi
       }
     }
 
-    for (String service : processToIp.keySet()) {
-      String pidPath = conf.get(service + ".pidPath");
-      String disruptionsConf = conf.get(service + ".disruptions", Constants.Plugins.DEFAULT_DISRUPTIONS);
+    // Disruption classes are loaded and services resolved concurrently, none of this talks to the hosts
+    ExecutorService startupExecutor = Executors.newFixedThreadPool(
+      STARTUP_THREADS, new ThreadFactoryBuilder().setDaemon(true).setNameFormat("startup-%d").build());
+    try {
+      Map<String, String[]> disruptionsByService = new HashMap<>();
+      Map<String, Future<Disruption>> disruptionsByClass = new HashMap<>();
+      for (String service : processToIp.keySet()) {
+        String[] disruptions = conf.get(service + ".disruptions", Constants.Plugins.DEFAULT_DISRUPTIONS).split(",");
+        disruptionsByService.put(service, disruptions);
+        for (final String disruptionString : disruptions) {
+          if (!disruptionsByClass.containsKey(disruptionString)) {
+            disruptionsByClass.put(disruptionString, startupExecutor.submit(new Callable<Disruption>() {
+              @Override
+              public Disruption call() throws Exception {
+                return LegacyDisruption.adapt(Class.forName(disruptionString).asSubclass(Disruption.class)
+                                                .newInstance());
+              }
+            }));
+          }
+        }
+      }
+
+      Map<String, Future<Map<String, RemoteProcess>>> processesByService = new LinkedHashMap<>();
+      for (final String service : processToIp.keySet()) {
+        for (String disruptionString : disruptionsByService.get(service)) {
+          Disruption disruption = getStartupResult(disruptionsByClass.get(disruptionString));
+          disruptionTable.put(service, disruption.getName(), disruption);
+        }
+
+        final String pidPath = conf.get(service + ".pidPath");
+        if ((disruptionTable.get(service, Constants.RemoteProcess.KILL) != null ||
+          disruptionTable.get(service, Constants.RemoteProcess.TERMINATE) != null) && pidPath == null) {
+          LOG.warn("The following process does not have a pidPath and will be skipped: {}", service);
+          continue;
+        }
 
-      String[] disruptions = disruptionsConf.split(",");
-      for (String disruptionString : disruptions) {
-        Disruption disruption = Class.forName(disruptionString).asSubclass(Disruption.class).newInstance();
-        disruptionTable.put(service, disruption.getName(), disruption);
+        final Collection<String> ipAddresses = new ArrayList<>(processToIp.get(service));
+        processesByService.put(service, startupExecutor.submit(new Callable<Map<String, RemoteProcess>>() {
+          @Override
+          public Map<String, RemoteProcess> call() {
+            return createProcesses(service, pidPath, ipAddresses);
+          }
+        }));
       }
 
-      if ((disruptionTable.get(service, Constants.RemoteProcess.KILL) != null ||
-        disruptionTable.get(service, Constants.RemoteProcess.TERMINATE) != null) && pidPath == null) {
-        LOG.warn("The following process does not have a pidPath and will be skipped: {}", service);
-        continue;
+      for (Map.Entry<String, Future<Map<String, RemoteProcess>>> entry : processesByService.entrySet()) {
+        for (Map.Entry<String, RemoteProcess> process : getStartupResult(entry.getValue()).entrySet()) {
+          processTable.put(process.getKey(), entry.getKey(), process.getValue());
+        }
       }
+    } finally {
+      startupExecutor.shutdownNow();
+    }
+    LOG.info("Resolved {} processes of {} services in {} ms", processTable.size(), processToIp.keySet().size(),
+             TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    BlastRadiusBudget.setDefault(createBudget(conf));
+    ProcessFanOut.setExecutor(new LaneExecutor("process-fan-out",
+                                               conf.getInt(Constants.Disruption.FAN_OUT_MAX_THREADS,
+                                                           Constants.Disruption.DEFAULT_FAN_OUT_MAX_THREADS),
+                                               conf.getInt(Constants.Disruption.FAN_OUT_MAX_PER_HOST,
+                                                           Constants.Disruption.DEFAULT_FAN_OUT_MAX_PER_HOST)));
+    this.disruptionService = new DisruptionService(disruptionTable,
+                                                   conf.getInt(Constants.Disruption.MAX_CONCURRENT,
+                                                               Constants.Disruption.DEFAULT_MAX_CONCURRENT));
+    this.disruptionService.startAsync().awaitRunning();
+    this.executor = new LaneExecutor("remote-task",
+                                     conf.getInt(Constants.Executor.MAX_THREADS,
+                                                 Constants.Executor.DEFAULT_MAX_THREADS),
+                                     conf.getInt(Constants.Executor.MAX_PER_HOST,
+                                                 Constants.Executor.DEFAULT_MAX_PER_HOST));
+    MetricsRegistry.Gauge unreachableGauge = new MetricsRegistry.Gauge() {
+      @Override
+      public double getValue() {
+        return unreachableHosts;
+      }
+    };
+    MetricsRegistry.getDefault().gauge("chaosmonkey_ssh_unreachable_hosts",
+                                       "Number of hosts that could not be reached by the last warm-up",
+                                       unreachableGauge);
+    if (conf.getBoolean(Constants.Ssh.WARMUP_ENABLED, false)) {
+      startWarmUp(conf.getInt(Constants.Ssh.WARMUP_TIMEOUT_SECONDS, Constants.Ssh.DEFAULT_WARMUP_TIMEOUT_SECONDS));
+    }
+  }
 
-      for (String ipAddress : processToIp.get(service)) {
-        SshShell sshShell = resolveSshShell(conf, ipAddress);
-
-        RemoteProcess process;
-        switch (conf.get(service + ".init.style", "sysv")) {
-          case "sysv":
-            process = new SysVRemoteProcess(service, pidPath, sshShell);
-            break;
-          case "custom":
-            ImmutableMap.Builder<String, String> map = ImmutableMap.builder();
-
-            for (String configOption : Constants.RemoteProcess.CONFIG_OPTIONS) {
-              String optionKey = String.format("%s.init.%s", service, configOption);
-              if (conf.get(optionKey) != null) {
-                map.put(configOption, conf.get(optionKey));
-              }
+  /**
+   * Creates the processes of a service on each of its hosts. Shells are only handles, no session is established.
+   */
+  private Map<String, RemoteProcess> createProcesses(String service, @Nullable String pidPath,
+                                                     Collection<String> ipAddresses) {
+    Map<String, RemoteProcess> processes = new HashMap<>();
+    for (String ipAddress : ipAddresses) {
+      SshShell sshShell = resolveSshShell(conf, service, ipAddress);
+
+      RemoteProcess process;
+      switch (conf.get(service + ".init.style", "sysv")) {
+        case "sysv":
+          process = new SysVRemoteProcess(service, pidPath, sshShell,
+                                          resolveLivenessProbe(conf, service, pidPath, false));
+          break;
+        case "custom":
+          ImmutableMap.Builder<String, String> map = ImmutableMap.builder();
+
+          for (String configOption : Constants.RemoteProcess.CONFIG_OPTIONS) {
+            String optionKey = String.format("%s.init.%s", service, configOption);
+            if (conf.get(optionKey) != null) {
+              map.put(configOption, conf.get(optionKey));
             }
+          }
+
+          ImmutableMap<String, String> customCommands = map.build();
+          boolean customIsRunning = customCommands.containsKey(Constants.RemoteProcess.IS_RUNNING);
+          process = new CustomRemoteProcess(service, pidPath, sshShell, customCommands,
+                                            resolveLivenessProbe(conf, service, pidPath, customIsRunning));
+          break;
+        default:
+          throw new IllegalArgumentException("The following process does not have a valid init.style: " + service);
+      }
+      processes.put(ipAddress, process);
+    }
+    return processes;
+  }
+
+  /**
+   * Waits for a startup task, rethrowing its failure as is.
+   */
+  private static <T> T getStartupResult(Future<T> future) throws Exception {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), Exception.class);
+      throw Throwables.propagate(e.getCause());
+    }
+  }
 
-            process = new CustomRemoteProcess(service, pidPath, sshShell, map.build());
-            break;
-          default:
-            throw new IllegalArgumentException("The following process does not have a valid init.style: " + service);
+  /**
+   * Creates the {@link BlastRadiusBudget} from the configuration. The limit of a service is either a number of
+   * processes or a percentage of its processes, rounded down but at least one.
+   */
+  private BlastRadiusBudget createBudget(Configuration conf) {
+    Map<String, Integer> maxDownPerService = new HashMap<>();
+    for (String service : processTable.columnKeySet()) {
+      String maxDown = conf.get(service + "." + Constants.Budget.MAX_DOWN);
+      if (maxDown == null) {
+        continue;
+      }
+      String value = maxDown.trim();
+      int numProcesses = processTable.column(service).size();
+      int limit = value.endsWith("%")
+        ? Math.max(1, (int) (numProcesses * Double.parseDouble(value.substring(0, value.length() - 1)) / 100))
+        : Integer.parseInt(value);
+      if (limit < 1) {
+        throw new IllegalArgumentException(String.format("%s.%s must allow at least one process down: %s",
+                                                         service, Constants.Budget.MAX_DOWN, maxDown));
+      }
+      maxDownPerService.put(service, limit);
+    }
+    return new BlastRadiusBudget(conf.getInt(Constants.Budget.MAX_DOWN_PER_CLUSTER, 0),
+                                 conf.getInt(Constants.Budget.MAX_DOWN_PER_HOST, 0), maxDownPerService,
+                                 conf.getInt(Constants.Budget.DEFER_SECONDS, Constants.Budget.DEFAULT_DEFER_SECONDS));
+  }
+
+  /**
+   * Establishes an SSH session to every configured host in parallel, so that the first commands do not pay for
+   * connecting. Sessions are otherwise only established when a host is first used.
+   *
+   * @param timeout The maximum time to wait for all hosts
+   * @param unit The unit of the timeout
+   * @return The hosts that could not be reached before the deadline, with the reason
+   */
+  public Map<String, String> warmUp(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    Map<String, Future<Void>> connections = new LinkedHashMap<>();
+    for (final String address : processTable.rowKeySet()) {
+      connections.put(address, executor.submit(address, new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          sshContext.connect(address);
+          return null;
         }
-        processTable.put(ipAddress, service, process);
+      }));
+    }
+
+    Map<String, String> unreachable = new TreeMap<>();
+    for (Map.Entry<String, Future<Void>> connection : connections.entrySet()) {
+      try {
+        connection.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+      } catch (ExecutionException e) {
+        unreachable.put(connection.getKey(), String.valueOf(e.getCause().getMessage()));
+      } catch (TimeoutException e) {
+        // Leave the connection attempt running, it is bounded by the connect timeout
+        unreachable.put(connection.getKey(), "not connected within " + timeout + " " + unit.name().toLowerCase());
       }
     }
-    this.disruptionService = new DisruptionService(disruptionTable);
-    this.executor = Executors.newFixedThreadPool(processTable.values().size());
+    unreachableHosts = unreachable.size();
+    return unreachable;
+  }
+
+  private void startWarmUp(final int timeoutSeconds) {
+    ExecutorService warmUpExecutor = Executors.newSingleThreadExecutor(
+      new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ssh-warm-up").build());
+    warmUpExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        long startNanos = System.nanoTime();
+        try {
+          Map<String, String> unreachable = warmUp(timeoutSeconds, TimeUnit.SECONDS);
+          long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+          if (unreachable.isEmpty()) {
+            LOG.info("Connected to all {} hosts in {} ms", processTable.rowKeySet().size(), elapsedMillis);
+          } else {
+            LOG.warn("Unable to connect to {} of {} hosts in {} ms: {}", unreachable.size(),
+                     processTable.rowKeySet().size(), elapsedMillis, unreachable);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } catch (Exception e) {
+          LOG.warn("Unable to warm up the SSH sessions", e);
+        }
+      }
+    });
+    warmUpExecutor.shutdown();
   }
 
   @Override
   protected void shutDown() throws Exception {
+    this.disruptionService.stopAsync().awaitTerminated();
     this.executor.shutdown();
+    this.recoveryTracker.shutdown();
+    this.sessionPool.shutdown();
   }
 
   @Override
@@ -285,19 +579,16 @@ public class ChaosMonkeyService extends AbstractIdleService implements ClusterDi
     executeAction(service, disruptionName, actionArguments);
   }
 
+  @Override
+  public Future<DisruptionJob> submit(String service, String disruptionName,
+                                      @Nullable ActionArguments actionArguments) throws Exception {
+    return executeAction(service, disruptionName, actionArguments);
+  }
+
   @Override
   public void disruptAndWait(String service, String disruptionName, @Nullable ActionArguments actionArguments,
                              long timeout, TimeUnit timeoutUnit) throws Exception {
-    executeAction(service, disruptionName, actionArguments);
-    long startTime = System.currentTimeMillis();
-    long timeoutMs = timeoutUnit.toMillis(timeout);
-    while (System.currentTimeMillis() - startTime < timeoutMs) {
-      if (!isActionRunning(service, disruptionName)) {
-        return;
-      }
-      TimeUnit.SECONDS.sleep(1);
-    }
-    throw new TimeoutException(String.format("Timeout occurred after %d %s", timeout, timeoutUnit.name()));
+    awaitJob(executeAction(service, disruptionName, actionArguments), timeout, timeoutUnit);
   }
 
   @Override
@@ -368,16 +659,7 @@ public class ChaosMonkeyService extends AbstractIdleService implements ClusterDi
   @Override
   public void startAndWait(String service, @Nullable ActionArguments actionArguments, long timeout,
                            TimeUnit timeoutUnit) throws Exception {
-    start(service, actionArguments);
-    long startTime = System.currentTimeMillis();
-    long timeoutMs = timeoutUnit.toMillis(timeout);
-    while (System.currentTimeMillis() - startTime < timeoutMs) {
-      if (!isStartRunning(service)) {
-        return;
-      }
-      TimeUnit.SECONDS.sleep(1);
-    }
-    throw new TimeoutException(String.format("Timeout occurred after %d %s", timeout, timeoutUnit.name()));
+    awaitJob(executeAction(service, new Start().getName(), actionArguments), timeout, timeoutUnit);
   }
 
   @Override
@@ -388,16 +670,7 @@ public class ChaosMonkeyService extends AbstractIdleService implements ClusterDi
   @Override
   public void restartAndWait(String service, @Nullable ActionArguments actionArguments, long timeout,
                              TimeUnit timeoutUnit) throws Exception {
-    restart(service, actionArguments);
-    long startTime = System.currentTimeMillis();
-    long timeoutMs = timeoutUnit.toMillis(timeout);
-    while (System.currentTimeMillis() - startTime < timeoutMs) {
-      if (!isRestartRunning(service)) {
-        return;
-      }
-      TimeUnit.SECONDS.sleep(1);
-    }
-    throw new TimeoutException(String.format("Timeout occurred after %d %s", timeout, timeoutUnit.name()));
+    awaitJob(executeAction(service, new Restart().getName(), actionArguments), timeout, timeoutUnit);
   }
 
   @Override
@@ -408,16 +681,7 @@ public class ChaosMonkeyService extends AbstractIdleService implements ClusterDi
   @Override
   public void stopAndWait(String service, @Nullable ActionArguments actionArguments, long timeout,
                           TimeUnit timeoutUnit) throws Exception {
-    stop(service, actionArguments);
-    long startTime = System.currentTimeMillis();
-    long timeoutMs = timeoutUnit.toMillis(timeout);
-    while (System.currentTimeMillis() - startTime < timeoutMs) {
-      if (!isStopRunning(service)) {
-        return;
-      }
-      TimeUnit.SECONDS.sleep(1);
-    }
-    throw new TimeoutException(String.format("Timeout occurred after %d %s", timeout, timeoutUnit.name()));
+    awaitJob(executeAction(service, new Stop().getName(), actionArguments), timeout, timeoutUnit);
   }
 
   @Override
@@ -428,16 +692,7 @@ public class ChaosMonkeyService extends AbstractIdleService implements ClusterDi
   @Override
   public void terminateAndWait(String service, ActionArguments actionArguments, long timeout,
                                TimeUnit timeoutUnit) throws Exception {
-    terminate(service, actionArguments);
-    long startTime = System.currentTimeMillis();
-    long timeoutMs = timeoutUnit.toMillis(timeout);
-    while (System.currentTimeMillis() - startTime < timeoutMs) {
-      if (!isTerminateRunning(service)) {
-        return;
-      }
-      TimeUnit.SECONDS.sleep(1);
-    }
-    throw new TimeoutException(String.format("Timeout occurred after %d %s", timeout, timeoutUnit.name()));
+    awaitJob(executeAction(service, new Terminate().getName(), actionArguments), timeout, timeoutUnit);
   }
 
   @Override
@@ -448,16 +703,7 @@ public class ChaosMonkeyService extends AbstractIdleService implements ClusterDi
   @Override
   public void killAndWait(String service, @Nullable ActionArguments actionArguments, long timeout,
                           TimeUnit timeoutUnit) throws Exception {
-    kill(service, actionArguments);
-    long startTime = System.currentTimeMillis();
-    long timeoutMs = timeoutUnit.toMillis(timeout);
-    while (System.currentTimeMillis() - startTime < timeoutMs) {
-      if (!isKillRunning(service)) {
-        return;
-      }
-      TimeUnit.SECONDS.sleep(1);
-    }
-    throw new TimeoutException(String.format("Timeout occurred after %d %s", timeout, timeoutUnit.name()));
+    awaitJob(executeAction(service, new Kill().getName(), actionArguments), timeout, timeoutUnit);
   }
 
   @Override
@@ -467,9 +713,14 @@ public class ChaosMonkeyService extends AbstractIdleService implements ClusterDi
 
   @Override
   public void rollingRestartAndWait(String service, @Nullable ActionArguments actionArguments) throws Exception {
-    rollingRestart(service, actionArguments);
-    while (isRollingRestartRunning(service)) {
-      TimeUnit.SECONDS.sleep(1);
+    executeAction(service, "rolling-restart", actionArguments).get();
+  }
+
+  private void awaitJob(DisruptionJobFuture job, long timeout, TimeUnit timeoutUnit) throws Exception {
+    try {
+      job.get(timeout, timeoutUnit);
+    } catch (TimeoutException e) {
+      throw new TimeoutException(String.format("Timeout occurred after %d %s", timeout, timeoutUnit.name()));
     }
   }
 
@@ -503,20 +754,4 @@ public class ChaosMonkeyService extends AbstractIdleService implements ClusterDi
     }
     return serviceInfos;
   }
-
-  /**
-   * Callable to return the status of a single service
-   */
-  public static class Status implements Callable<ServiceStatus> {
-
-    private final RemoteProcess process;
-
-    Status(RemoteProcess process) {
-      this.process = process;
-    }
-
-    public ServiceStatus call() throws Exception {
-      return new ServiceStatus(process.getAddress(), process.getName(), process.isRunning() ? "running" : "stopped");
-    }
-  }
 }
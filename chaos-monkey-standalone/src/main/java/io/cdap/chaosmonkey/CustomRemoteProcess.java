@@ -17,11 +17,12 @@
 package io.cdap.chaosmonkey;
 
 import com.google.common.collect.ImmutableMap;
-import com.jcraft.jsch.JSchException;
 import io.cdap.chaosmonkey.common.Constants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 /**
  * A remote process that ScheduledDisruption can interact with.
  */
@@ -40,16 +41,28 @@ public class CustomRemoteProcess extends SysVRemoteProcess {
    */
   public CustomRemoteProcess(String name, String pidFilePath, SshShell sshShell,
                              ImmutableMap<String, String> customCommands) {
-    super(name, pidFilePath, sshShell);
+    this(name, pidFilePath, sshShell, customCommands, null);
+  }
+
+  /**
+   * Create a new {@code RemoteProcess}.
+   *
+   * @param name The name of the process on the remote host
+   * @param pidFilePath The path to its pidfile on the remote host
+   * @param sshShell The {@code SshShell} that should be used to execute remote commands on the remote
+   * @param customCommands An override of the default commands
+   * @param livenessProbe The {@link LivenessProbe} checking whether the process is running, or {@code null} to
+   *                      run the custom isRunning command if there is one, or the init script otherwise
+   */
+  public CustomRemoteProcess(String name, String pidFilePath, SshShell sshShell,
+                             ImmutableMap<String, String> customCommands, @Nullable LivenessProbe livenessProbe) {
+    super(name, pidFilePath, sshShell, livenessProbe == null ? getDefaultProbe(customCommands) : livenessProbe);
     this.customCommands = customCommands;
   }
 
-  @Override
-  public boolean isRunning() throws JSchException {
-    if (customCommands.containsKey(Constants.RemoteProcess.IS_RUNNING)) {
-      return execAndReturnSucessful(customCommands.get(Constants.RemoteProcess.IS_RUNNING));
-    } else {
-      return super.isRunning();
-    }
+  @Nullable
+  private static LivenessProbe getDefaultProbe(ImmutableMap<String, String> customCommands) {
+    String isRunning = customCommands.get(Constants.RemoteProcess.IS_RUNNING);
+    return isRunning == null ? null : new LivenessProbe.Command(isRunning);
   }
 }
@@ -16,11 +16,15 @@
 
 package io.cdap.chaosmonkey;
 
+import io.cdap.chaosmonkey.proto.ProcessOutcome;
+
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 /**
- * A disruption that alters the status of running processes
+ * A disruption that alters the status of running processes. A single instance of each disruption class is shared by
+ * all services, and may run for several services at once.
  */
 public interface Disruption {
 
@@ -28,8 +32,10 @@ public interface Disruption {
    * Perform the disruption on the given list of processes
    * @param processes Collection of processes to disrupt
    * @param serviceArguments Configuration for the disruption
+   * @return The outcome of the disruption on each process
    */
-  void disrupt(Collection<RemoteProcess> processes, Map<String, String> serviceArguments) throws Exception;
+  List<ProcessOutcome> disrupt(Collection<RemoteProcess> processes,
+                               Map<String, String> serviceArguments) throws Exception;
 
   /**
    * Get the name of this disruption
@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.AbstractFuture;
+import io.cdap.chaosmonkey.proto.DisruptionJob;
+import io.cdap.chaosmonkey.proto.ProcessOutcome;
+
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Tracks a disruption job submitted to the {@link DisruptionService}. The future completes with the final
+ * {@link DisruptionJob} once the disruption is done, whether it succeeded or failed, so callers can wait on it
+ * instead of polling the running status of the action.
+ */
+public class DisruptionJobFuture extends AbstractFuture<DisruptionJob> {
+  private final String id;
+  private final String service;
+  private final String action;
+  private DisruptionJob.State state;
+  private Long startTime;
+  private Long endTime;
+  private List<ProcessOutcome> outcomes;
+  private String message;
+
+  DisruptionJobFuture(String id, String service, String action) {
+    this.id = id;
+    this.service = service;
+    this.action = action;
+    this.state = DisruptionJob.State.QUEUED;
+    this.outcomes = Collections.emptyList();
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Returns a snapshot of the current state of the job.
+   */
+  public synchronized DisruptionJob getJob() {
+    return new DisruptionJob(id, service, action, state, startTime, endTime, outcomes, message);
+  }
+
+  /**
+   * Marks the job as running.
+   *
+   * @return {@code false} if the job was already completed while queued, in which case it must not be run
+   */
+  synchronized boolean started() {
+    if (state != DisruptionJob.State.QUEUED) {
+      return false;
+    }
+    state = DisruptionJob.State.RUNNING;
+    startTime = System.currentTimeMillis();
+    return true;
+  }
+
+  /**
+   * Fails the job if it has not started running yet.
+   *
+   * @return {@code true} if the job was failed
+   */
+  boolean failIfQueued(String reason) {
+    synchronized (this) {
+      if (state != DisruptionJob.State.QUEUED) {
+        return false;
+      }
+    }
+    return finish(DisruptionJob.State.FAILED, Collections.<ProcessOutcome>emptyList(), reason);
+  }
+
+  /**
+   * Completes the job with the outcome of the disruption on each process. The job fails if any process failed.
+   */
+  void completed(List<ProcessOutcome> processOutcomes) {
+    boolean failed = false;
+    for (ProcessOutcome outcome : processOutcomes) {
+      failed |= outcome.getResult() == ProcessOutcome.Result.FAILED;
+    }
+    finish(failed ? DisruptionJob.State.FAILED : DisruptionJob.State.SUCCEEDED, processOutcomes, null);
+  }
+
+  /**
+   * Completes the job as failed because the disruption could not be run to the end.
+   */
+  void failed(Throwable cause) {
+    String reason = cause.getMessage() == null ? Throwables.getRootCause(cause).toString() : cause.getMessage();
+    finish(DisruptionJob.State.FAILED, Collections.<ProcessOutcome>emptyList(), reason);
+  }
+
+  private boolean finish(DisruptionJob.State finalState, List<ProcessOutcome> processOutcomes,
+                         @Nullable String reason) {
+    DisruptionJob job;
+    synchronized (this) {
+      if (state == DisruptionJob.State.SUCCEEDED || state == DisruptionJob.State.FAILED) {
+        return false;
+      }
+      state = finalState;
+      endTime = System.currentTimeMillis();
+      if (startTime == null) {
+        startTime = endTime;
+      }
+      outcomes = ImmutableList.copyOf(processOutcomes);
+      message = reason;
+      job = getJob();
+    }
+    return set(job);
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    // Disruptions are not interruptible once submitted
+    return false;
+  }
+}
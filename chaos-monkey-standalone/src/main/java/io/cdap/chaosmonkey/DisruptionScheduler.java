@@ -0,0 +1,169 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import com.google.common.util.concurrent.AbstractIdleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs every {@link ScheduledDisruption} from a single {@link HashedWheelTimer}. Ticks arrive as decided by the
+ * {@link ArrivalModel} of each disruption and hand the iteration to a {@link LaneExecutor} with one lane per service,
+ * so a slow, SSH-bound iteration never delays the ticks of other services. A tick that fires while the previous
+ * iteration of the same service is still running is skipped and counted as an overrun, instead of queueing up behind
+ * it. Ticks are placed on an absolute timeline, so the lateness of one tick does not shift the following ones and
+ * the long-run rate of ticks is the rate of the model.
+ */
+public class DisruptionScheduler extends AbstractIdleService {
+  private static final Logger LOG = LoggerFactory.getLogger(DisruptionScheduler.class);
+
+  private final long tickMillis;
+  private final int wheelSize;
+  private final int maxThreads;
+  private final List<Schedule> schedules;
+  private HashedWheelTimer timer;
+  private LaneExecutor executor;
+  private boolean started;
+
+  /**
+   * @param tickMillis The precision of the timer, in milliseconds
+   * @param wheelSize The number of buckets of the timer
+   * @param maxThreads The maximum number of iterations running at once across all services
+   */
+  public DisruptionScheduler(long tickMillis, int wheelSize, int maxThreads) {
+    this.tickMillis = tickMillis;
+    this.wheelSize = wheelSize;
+    this.maxThreads = maxThreads;
+    this.schedules = new ArrayList<>();
+  }
+
+  /**
+   * Adds a disruption to run periodically. The first iteration runs as soon as the scheduler is running.
+   */
+  public synchronized void schedule(ScheduledDisruption disruption) {
+    Schedule schedule = new Schedule(disruption);
+    schedules.add(schedule);
+    if (started) {
+      schedule.start();
+    }
+  }
+
+  @Override
+  protected synchronized void startUp() throws Exception {
+    timer = new HashedWheelTimer("disruption-scheduler", tickMillis, TimeUnit.MILLISECONDS, wheelSize);
+    executor = new LaneExecutor("scheduled-disruption", maxThreads, 1);
+    for (Schedule schedule : schedules) {
+      schedule.start();
+    }
+    started = true;
+  }
+
+  @Override
+  protected synchronized void shutDown() throws Exception {
+    timer.stop();
+    executor.shutdown();
+  }
+
+  /**
+   * The state of the periodic execution of one {@link ScheduledDisruption}.
+   */
+  private final class Schedule implements Runnable {
+    private final ScheduledDisruption disruption;
+    private final ArrivalModel arrivalModel;
+    private final AtomicBoolean running;
+    private final MetricsRegistry.Timer lateness;
+    private final MetricsRegistry.Timer iterationTimer;
+    private final MetricsRegistry.Counter overruns;
+    // Only accessed by the timer thread once started
+    private long intendedNanos;
+
+    Schedule(ScheduledDisruption disruption) {
+      this.disruption = disruption;
+      this.arrivalModel = disruption.getArrivalModel();
+      this.running = new AtomicBoolean();
+      String service = disruption.getService();
+      MetricsRegistry metrics = MetricsRegistry.getDefault();
+      this.lateness = metrics.timer("chaosmonkey_scheduled_tick_lateness_seconds",
+                                    "Delay between the intended and the actual firing time of scheduled ticks",
+                                    "service", service);
+      this.iterationTimer = metrics.timer("chaosmonkey_scheduled_iteration_seconds",
+                                          "Duration of scheduled disruption iterations", "service", service);
+      this.overruns = metrics.counter("chaosmonkey_scheduled_overruns_total",
+                                      "Number of ticks skipped because the previous iteration was still running",
+                                      "service", service);
+    }
+
+    void start() {
+      long nowNanos = System.nanoTime();
+      intendedNanos = nowNanos + arrivalModel.firstDelayNanos();
+      LOG.info("Scheduling disruptions of {}: {}", disruption.getService(), arrivalModel);
+      timer.newTimeout(this, intendedNanos - nowNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void run() {
+      long nowNanos = System.nanoTime();
+      long lateNanos = nowNanos - intendedNanos;
+      lateness.record(lateNanos, TimeUnit.NANOSECONDS);
+      LOG.trace("Tick of {} fired {} ms late", disruption.getService(), TimeUnit.NANOSECONDS.toMillis(lateNanos));
+
+      if (running.compareAndSet(false, true)) {
+        submitIteration();
+      } else {
+        overruns.inc();
+        LOG.debug("Skipping a tick of {}, the previous iteration is still running", disruption.getService());
+      }
+
+      // A tick that is already due fires on the next tick of the timer, and is an overrun if this one still runs
+      intendedNanos += arrivalModel.nextDelayNanos();
+      try {
+        timer.newTimeout(this, Math.max(0, intendedNanos - nowNanos), TimeUnit.NANOSECONDS);
+      } catch (IllegalStateException e) {
+        LOG.trace("Not scheduling {} again, the scheduler is stopping", disruption.getService());
+      }
+    }
+
+    private void submitIteration() {
+      try {
+        executor.submit(disruption.getService(), new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            long startNanos = System.nanoTime();
+            try {
+              disruption.runOneIteration();
+            } catch (Exception e) {
+              LOG.warn("Scheduled disruption of {} failed", disruption.getService(), e);
+            } finally {
+              iterationTimer.recordSince(startNanos);
+              running.set(false);
+            }
+            return null;
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        running.set(false);
+      }
+    }
+  }
+}
@@ -19,30 +19,58 @@ package io.cdap.chaosmonkey;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Table;
 import com.google.common.util.concurrent.AbstractIdleService;
-import com.google.common.util.concurrent.SettableFuture;
+import io.cdap.chaosmonkey.proto.DisruptionJob;
+import io.cdap.chaosmonkey.proto.ProcessOutcome;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nullable;
 import javax.ws.rs.NotFoundException;
 
 /**
- * Service to keep track of running disruptions
+ * Service to keep track of running disruptions. Disruptions of different services run concurrently, up to a
+ * global limit, while disruptions of the same service are queued behind each other.
  */
 public class DisruptionService extends AbstractIdleService {
+  private static final Logger LOG = LoggerFactory.getLogger(DisruptionService.class);
+  private static final int MAX_RETAINED_JOBS = 1000;
 
-  private static final ExecutorService executor = Executors.newFixedThreadPool(1);
-
+  private final LaneExecutor executor;
+  private final Map<String, DisruptionJobFuture> jobs;
+  private final ConcurrentMap<String, DisruptionJobFuture> latestJobs;
   private Table<String, String, AtomicBoolean> status;
   private Table<String, String, Disruption> disruptionTable;
 
-  public DisruptionService(Table<String, String, Disruption> compatibleDisruptions) {
+  /**
+   * @param compatibleDisruptions The disruptions available to each service
+   * @param maxConcurrent The maximum number of disruptions running at once across all services
+   */
+  public DisruptionService(Table<String, String, Disruption> compatibleDisruptions, int maxConcurrent) {
+    this.executor = new LaneExecutor("disruption", maxConcurrent, 1);
     this.disruptionTable = compatibleDisruptions;
+    // Keeps the most recent jobs so their results can be queried after they are done
+    this.jobs = Collections.synchronizedMap(new LinkedHashMap<String, DisruptionJobFuture>() {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, DisruptionJobFuture> eldest) {
+        return size() > MAX_RETAINED_JOBS;
+      }
+    });
+    this.latestJobs = new ConcurrentHashMap<>();
+    registerGauge(DisruptionJob.State.QUEUED);
+    registerGauge(DisruptionJob.State.RUNNING);
     status = HashBasedTable.create();
     for (String service : compatibleDisruptions.rowKeySet()) {
       for (String disruptionName : compatibleDisruptions.columnKeySet()) {
@@ -71,18 +99,77 @@ public class DisruptionService extends AbstractIdleService {
    * @param service The name of the service to be disrupted
    * @param processes Collection of {@link RemoteProcess} to be disrupted
    * @param serviceArguments Configuration for the disruption
-   * @return {@link Future<Void>} to signal when the disruption is complete
+   * @return {@link DisruptionJobFuture} tracking the disruption, completed when the disruption is done
    * @throws IllegalStateException if the same disruption is already running
    */
-  public Future<Void> disrupt(String disruptionName, String service, Collection<RemoteProcess> processes,
-                              Map<String, String> serviceArguments) {
-    SettableFuture<Void> future = SettableFuture.create();
+  public DisruptionJobFuture disrupt(String disruptionName, String service, Collection<RemoteProcess> processes,
+                                     Map<String, String> serviceArguments) {
     if (!checkAndStart(service, disruptionName)) {
       throw new IllegalStateException(String.format("Conflict: %s %s is already running", service, disruptionName));
     }
-    executor.submit(new DisruptionCallable(disruptionTable.get(service, disruptionName), service, processes, status,
-                                           serviceArguments, future));
-    return future;
+    DisruptionJobFuture job = new DisruptionJobFuture(UUID.randomUUID().toString(), service, disruptionName);
+    try {
+      executor.submit(service, new DisruptionCallable(disruptionTable.get(service, disruptionName), service,
+                                                      processes, status, serviceArguments, job));
+    } catch (RejectedExecutionException e) {
+      status.get(service, disruptionName).set(false);
+      throw new IllegalStateException("Disruptions are no longer accepted, the service is shutting down", e);
+    }
+    jobs.put(job.getId(), job);
+    latestJobs.put(service + "/" + disruptionName, job);
+    return job;
+  }
+
+  /**
+   * Returns a job previously returned by {@link #disrupt(String, String, Collection, Map)}
+   *
+   * @param jobId The id of the job
+   * @return {@link DisruptionJobFuture} tracking the disruption
+   * @throws NotFoundException if there is no such job, or it is too old to be retained
+   */
+  public DisruptionJobFuture getJob(String jobId) {
+    DisruptionJobFuture job = jobs.get(jobId);
+    if (job == null) {
+      throw new NotFoundException("Unknown job: " + jobId);
+    }
+    return job;
+  }
+
+  /**
+   * Returns the job of the most recent run of a disruption on a service
+   *
+   * @param service The name of the service
+   * @param disruptionName The name of the disruption
+   * @return {@link DisruptionJobFuture}, or {@code null} if the disruption never ran on the service
+   */
+  @Nullable
+  public DisruptionJobFuture getLatestJob(String service, String disruptionName) {
+    return latestJobs.get(service + "/" + disruptionName);
+  }
+
+  /**
+   * Exposes the number of retained jobs in the given state. Jobs are counted when metrics are collected, which
+   * keeps submission and completion free of bookkeeping.
+   */
+  private void registerGauge(final DisruptionJob.State state) {
+    MetricsRegistry.Gauge gauge = new MetricsRegistry.Gauge() {
+      @Override
+      public double getValue() {
+        List<DisruptionJobFuture> retained;
+        synchronized (jobs) {
+          retained = new ArrayList<>(jobs.values());
+        }
+        int count = 0;
+        for (DisruptionJobFuture job : retained) {
+          if (job.getJob().getState() == state) {
+            count++;
+          }
+        }
+        return count;
+      }
+    };
+    MetricsRegistry.getDefault().gauge("chaosmonkey_disruption_jobs", "Number of disruption jobs by state", gauge,
+                                       "state", state.name().toLowerCase());
   }
 
   private boolean checkAndStart(String service, String action) {
@@ -101,6 +188,17 @@ public class DisruptionService extends AbstractIdleService {
   @Override
   protected void shutDown() throws Exception {
     executor.shutdown();
+    // Queued disruptions will never run, complete their jobs so that nobody waits on them forever
+    List<DisruptionJobFuture> retained;
+    synchronized (jobs) {
+      retained = new ArrayList<>(jobs.values());
+    }
+    for (DisruptionJobFuture job : retained) {
+      DisruptionJob snapshot = job.getJob();
+      if (job.failIfQueued("Chaos Monkey was shut down before the disruption started")) {
+        status.get(snapshot.getService(), snapshot.getAction()).set(false);
+      }
+    }
   }
 
   private static class DisruptionCallable implements Callable<Void> {
@@ -109,30 +207,58 @@ public class DisruptionService extends AbstractIdleService {
     private final Collection<RemoteProcess> processes;
     private final Table<String, String, AtomicBoolean> status;
     private final Map<String, String> serviceArguments;
-    private final SettableFuture<Void> future;
+    private final DisruptionJobFuture job;
 
     DisruptionCallable(Disruption disruption, String service,  Collection<RemoteProcess> processes,
                        Table<String, String, AtomicBoolean> status, @Nullable Map<String, String> serviceArguments,
-                       SettableFuture<Void> future) {
+                       DisruptionJobFuture job) {
       this.disruption = disruption;
       this.service = service;
       this.processes = processes;
       this.status = status;
       this.serviceArguments = serviceArguments;
-      this.future = future;
+      this.job = job;
     }
 
     @Override
     public Void call() throws Exception {
+      if (!job.started()) {
+        return null;
+      }
+      List<ProcessOutcome> outcomes = null;
+      Throwable failure = null;
+      ActiveDisruptions.Record record = ActiveDisruptions.getDefault().begin(service, disruption.getName());
       try {
-        disruption.disrupt(processes, serviceArguments);
+        outcomes = disruption.disrupt(processes, serviceArguments);
+      } catch (Throwable t) {
+        LOG.error("Failed to {} {}", disruption.getName(), service, t);
+        failure = t;
       } finally {
+        record.end();
+        // Release before completing the job, so that waiters see the action as no longer running
         release(service, disruption.getName());
-        future.set(null);
       }
+      if (failure == null) {
+        job.completed(outcomes);
+      } else {
+        job.failed(failure);
+      }
+      recordMetrics(job.getJob());
       return null;
     }
 
+    private void recordMetrics(DisruptionJob completed) {
+      MetricsRegistry metrics = MetricsRegistry.getDefault();
+      if (completed.getStartTime() != null && completed.getEndTime() != null) {
+        metrics.timer("chaosmonkey_disruption_duration_seconds", "Duration of disruptions by service and action",
+                      "service", service, "action", completed.getAction())
+          .record(completed.getEndTime() - completed.getStartTime(), TimeUnit.MILLISECONDS);
+      }
+      metrics.counter("chaosmonkey_disruption_jobs_total", "Number of completed disruption jobs by result",
+                      "service", service, "action", completed.getAction(),
+                      "state", completed.getState().name().toLowerCase()).inc();
+    }
+
     private void release(String service, String action) {
       AtomicBoolean atomicBoolean = status.get(service, action);
       atomicBoolean.set(false);
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import java.util.Arrays;
+
+/**
+ * How {@link SshShell} runs a command on the remote host.
+ */
+public enum ExecMode {
+  /**
+   * Runs the command with {@code bash -lc}, sourcing the login profile every time.
+   */
+  LOGIN("login"),
+
+  /**
+   * Runs the command with {@code bash -c}, without sourcing the login profile.
+   */
+  BASH("bash"),
+
+  /**
+   * Passes the command as is to sshd, which runs it with the shell of the user without sourcing the login profile.
+   */
+  DIRECT("direct"),
+
+  /**
+   * Captures the environment of a login shell once per SSH session, and runs the command with {@code bash -c} in
+   * that environment.
+   */
+  CACHED_LOGIN("cached-login");
+
+  private final String value;
+
+  ExecMode(String value) {
+    this.value = value;
+  }
+
+  /**
+   * Returns the {@code ExecMode} with the given configuration value.
+   *
+   * @throws IllegalArgumentException if no mode has the given value
+   */
+  public static ExecMode fromString(String value) {
+    for (ExecMode mode : values()) {
+      if (mode.value.equals(value)) {
+        return mode;
+      }
+    }
+    throw new IllegalArgumentException(String.format("Unknown exec mode '%s', expected one of %s",
+                                                     value, Arrays.toString(values())));
+  }
+
+  @Override
+  public String toString() {
+    return value;
+  }
+}
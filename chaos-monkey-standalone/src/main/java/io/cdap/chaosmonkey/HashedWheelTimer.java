@@ -0,0 +1,185 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A timer that keeps its timeouts in a wheel of buckets and fires them from a single thread. Every tick the thread
+ * moves to the next bucket and runs the timeouts of that bucket whose deadline has passed, so adding and firing a
+ * timeout costs constant time regardless of how many are pending. Timeouts fire up to one tick late.
+ *
+ * Tasks run on the timer thread and must return quickly, handing any blocking work to an executor.
+ */
+public class HashedWheelTimer {
+  private static final Logger LOG = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+  private final long tickNanos;
+  private final List<List<Timeout>> wheel;
+  private final int mask;
+  private final Queue<Timeout> pending;
+  private final Thread worker;
+  private final long startNanos;
+  private volatile boolean stopped;
+
+  /**
+   * @param name The name of the timer thread
+   * @param tickDuration The duration of a tick, which is the precision of the timer
+   * @param unit The unit of the tick duration
+   * @param wheelSize The number of buckets, rounded up to a power of two
+   */
+  public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+    if (tickDuration <= 0) {
+      throw new IllegalArgumentException("tickDuration must be greater than zero: " + tickDuration);
+    }
+    if (wheelSize < 1 || wheelSize > (1 << 30)) {
+      throw new IllegalArgumentException("wheelSize must be between 1 and 2^30: " + wheelSize);
+    }
+    int size = Integer.highestOneBit(wheelSize) == wheelSize ? wheelSize : Integer.highestOneBit(wheelSize) << 1;
+    this.tickNanos = unit.toNanos(tickDuration);
+    this.mask = size - 1;
+    this.wheel = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      wheel.add(new ArrayList<Timeout>());
+    }
+    this.pending = new ConcurrentLinkedQueue<>();
+    this.startNanos = System.nanoTime();
+    this.worker = new ThreadFactoryBuilder().setDaemon(true).setNameFormat(name).build().newThread(new Runnable() {
+      @Override
+      public void run() {
+        runWorker();
+      }
+    });
+    this.worker.start();
+  }
+
+  /**
+   * Schedules a task to run once after the given delay.
+   *
+   * @param task The task to run, on the timer thread
+   * @param delay The delay after which the task runs
+   * @param unit The unit of the delay
+   * @return The {@link Timeout}, which can be used to cancel the task
+   * @throws IllegalStateException if the timer has been stopped
+   */
+  public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+    if (stopped) {
+      throw new IllegalStateException("The timer has been stopped");
+    }
+    Timeout timeout = new Timeout(task, System.nanoTime() + Math.max(0, unit.toNanos(delay)));
+    pending.add(timeout);
+    return timeout;
+  }
+
+  /**
+   * Stops the timer. Pending timeouts are discarded.
+   */
+  public void stop() {
+    stopped = true;
+    worker.interrupt();
+  }
+
+  private void runWorker() {
+    long tick = 0;
+    while (!stopped) {
+      long sleepNanos = startNanos + (tick + 1) * tickNanos - System.nanoTime();
+      if (sleepNanos > 0) {
+        try {
+          TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        } catch (InterruptedException e) {
+          continue;
+        }
+      }
+      transferPending(tick);
+      expire(wheel.get((int) (tick & mask)), System.nanoTime());
+      tick++;
+    }
+  }
+
+  /**
+   * Moves the timeouts added since the last tick into the bucket of the tick they are due on.
+   */
+  private void transferPending(long currentTick) {
+    for (Timeout timeout = pending.poll(); timeout != null; timeout = pending.poll()) {
+      if (timeout.cancelled) {
+        continue;
+      }
+      // Ticks are counted from the end of the first tick, and a timeout never goes into a bucket already passed
+      long dueTick = Math.max(currentTick, (timeout.deadlineNanos - startNanos) / tickNanos);
+      timeout.remainingRounds = (dueTick - currentTick) / wheel.size();
+      wheel.get((int) (dueTick & mask)).add(timeout);
+    }
+  }
+
+  private void expire(List<Timeout> bucket, long nowNanos) {
+    Iterator<Timeout> iterator = bucket.iterator();
+    while (iterator.hasNext()) {
+      Timeout timeout = iterator.next();
+      if (timeout.cancelled) {
+        iterator.remove();
+      } else if (timeout.remainingRounds <= 0 && timeout.deadlineNanos <= nowNanos) {
+        iterator.remove();
+        try {
+          timeout.task.run();
+        } catch (Throwable t) {
+          LOG.warn("Timer task threw an exception", t);
+        }
+      } else {
+        timeout.remainingRounds--;
+      }
+    }
+  }
+
+  /**
+   * A task scheduled on a {@link HashedWheelTimer}.
+   */
+  public static final class Timeout {
+    private final Runnable task;
+    private final long deadlineNanos;
+    private volatile boolean cancelled;
+    // Only accessed by the timer thread
+    private long remainingRounds;
+
+    Timeout(Runnable task, long deadlineNanos) {
+      this.task = task;
+      this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Returns the {@link System#nanoTime()} at which the task is due.
+     */
+    public long getDeadlineNanos() {
+      return deadlineNanos;
+    }
+
+    /**
+     * Prevents the task from running if it has not run yet.
+     */
+    public void cancel() {
+      cancelled = true;
+    }
+  }
+}
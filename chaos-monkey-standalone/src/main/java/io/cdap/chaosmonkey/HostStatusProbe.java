@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import io.cdap.chaosmonkey.proto.ServiceStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Callable to return the status of every service on a single host. The status commands of all
+ * {@link SysVRemoteProcess}es on the host are combined into one script per {@link SshShell}, so that the host is
+ * probed with a single remote command per exec mode and every status command runs in the environment of its own
+ * service. Processes whose {@link LivenessProbe} does not run a command, and other {@link RemoteProcess}
+ * implementations, are checked one by one.
+ */
+public class HostStatusProbe implements Callable<List<ServiceStatus>> {
+  private static final Logger LOG = LoggerFactory.getLogger(HostStatusProbe.class);
+  private static final String MARKER = "chaosmonkey-status";
+
+  private final String address;
+  private final Collection<RemoteProcess> processes;
+
+  /**
+   * @param address The address of the host
+   * @param processes The processes on the host to be probed
+   */
+  public HostStatusProbe(String address, Collection<RemoteProcess> processes) {
+    this.address = address;
+    this.processes = processes;
+  }
+
+  @Override
+  public List<ServiceStatus> call() throws Exception {
+    Map<String, List<SysVRemoteProcess>> batches = new LinkedHashMap<>();
+    List<ServiceStatus> statuses = new ArrayList<>();
+    for (RemoteProcess process : processes) {
+      if (process instanceof SysVRemoteProcess && ((SysVRemoteProcess) process).getStatusCommand() != null) {
+        SshShell shell = ((SysVRemoteProcess) process).getSshShell();
+        String key = shell.getUsername() + "@" + shell.getAddress() + "/" + shell.getExecMode();
+        List<SysVRemoteProcess> batch = batches.get(key);
+        if (batch == null) {
+          batch = new ArrayList<>();
+          batches.put(key, batch);
+        }
+        batch.add((SysVRemoteProcess) process);
+      } else {
+        statuses.add(getStatus(process, process.isRunning()));
+      }
+    }
+    for (List<SysVRemoteProcess> batch : batches.values()) {
+      statuses.addAll(probe(batch));
+    }
+    return statuses;
+  }
+
+  /**
+   * Runs the status commands of processes sharing the same shell in a single remote command.
+   */
+  private List<ServiceStatus> probe(List<SysVRemoteProcess> batched) throws Exception {
+    List<ServiceStatus> statuses = new ArrayList<>();
+    ShellOutput output = batched.get(0).getSshShell().exec(buildScript(batched));
+    Map<Integer, Integer> returnCodes = parseReturnCodes(address, output.standardOutput);
+    for (int i = 0; i < batched.size(); i++) {
+      SysVRemoteProcess process = batched.get(i);
+      Integer returnCode = returnCodes.get(i);
+      if (returnCode == null) {
+        LOG.debug("No status reported for {} on {}, checking it separately", process.getName(), address);
+        statuses.add(getStatus(process, process.isRunning()));
+      } else {
+        statuses.add(getStatus(process, returnCode == 0));
+      }
+    }
+    return statuses;
+  }
+
+  /**
+   * Builds a script that runs the status command of each process and reports its return code on a line of the
+   * form {@code <marker> <index> <returnCode>}, where index is the position of the process in the given list.
+   */
+  private String buildScript(List<SysVRemoteProcess> batched) {
+    StringBuilder script = new StringBuilder();
+    for (int i = 0; i < batched.size(); i++) {
+      if (i > 0) {
+        script.append("; ");
+      }
+      script.append(String.format("{ %s; } </dev/null >/dev/null 2>&1; echo \"%s %d $?\"",
+                                  batched.get(i).getStatusCommand(), MARKER, i));
+    }
+    return script.toString();
+  }
+
+  /**
+   * Parses the return codes reported by the script, by index of the process. Lines that are not status lines are
+   * ignored.
+   */
+  static Map<Integer, Integer> parseReturnCodes(String address, String output) {
+    Map<Integer, Integer> returnCodes = new HashMap<>();
+    for (String line : output.split("\n")) {
+      String[] parts = line.trim().split(" ");
+      if (parts.length != 3 || !MARKER.equals(parts[0])) {
+        // Ignore anything printed by the login profile
+        continue;
+      }
+      try {
+        returnCodes.put(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+      } catch (NumberFormatException e) {
+        LOG.debug("Ignoring malformed status line from {}: {}", address, line);
+      }
+    }
+    return returnCodes;
+  }
+
+  private ServiceStatus getStatus(RemoteProcess process, boolean running) {
+    return new ServiceStatus(address, process.getName(), running ? "running" : "stopped");
+  }
+}
@@ -16,20 +16,34 @@
 
 package io.cdap.chaosmonkey;
 
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
 import io.cdap.chaosmonkey.common.Constants;
 import io.cdap.chaosmonkey.proto.ActionArguments;
 import io.cdap.http.AbstractHttpHandler;
 import io.cdap.http.HttpResponder;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
 
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 
 /**
  * The class that handles HTTP calls.
@@ -38,11 +52,18 @@ import javax.ws.rs.PathParam;
 public class HttpHandler extends AbstractHttpHandler {
 
   private static final Gson GSON = new Gson();
+  private static final String WAIT_FOR_COMPLETION = "completion";
+  private static final long MAX_WAIT_SECONDS = 300;
+  // Completes long-polls whose job did not finish within their timeout
+  private static final ScheduledExecutorService WAIT_TIMER = Executors.newSingleThreadScheduledExecutor(
+    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("http-wait-timer").build());
 
   private final ChaosMonkeyService chaosMonkeyService;
+  private final StatusCache statusCache;
 
-  HttpHandler(ChaosMonkeyService chaosMonkeyService) {
+  HttpHandler(ChaosMonkeyService chaosMonkeyService, StatusCache statusCache) {
     this.chaosMonkeyService = chaosMonkeyService;
+    this.statusCache = statusCache;
   }
 
   @POST
@@ -52,16 +73,57 @@ public class HttpHandler extends AbstractHttpHandler {
     ActionArguments actionArguments = GSON.fromJson(request.content().toString(StandardCharsets.UTF_8),
                                                     ActionArguments.class);
 
-    chaosMonkeyService.executeAction(service, action, actionArguments);
-    responder.sendString(HttpResponseStatus.OK, "success");
+    DisruptionJobFuture job = chaosMonkeyService.executeAction(service, action, actionArguments);
+    responder.sendJson(HttpResponseStatus.OK, GSON.toJson(job.getJob()));
   }
 
+  /**
+   * Gets the state of a disruption job, including the outcome on each process once it is done. With
+   * waitFor=completion, the response is held until the job is done or the timeout in seconds expires, whichever comes
+   * first.
+   */
+  @GET
+  @Path("/jobs/{id}")
+  public void getJob(HttpRequest request, HttpResponder responder, @PathParam("id") String id,
+                     @QueryParam("waitFor") @DefaultValue("") String waitFor,
+                     @QueryParam("timeout") @DefaultValue("30") long timeoutSeconds) throws Exception {
+    final DisruptionJobFuture job = chaosMonkeyService.getJobFuture(id);
+    Callable<Object> state = new Callable<Object>() {
+      @Override
+      public Object call() {
+        return job.getJob();
+      }
+    };
+    if (!shouldWait(waitFor, timeoutSeconds)) {
+      responder.sendJson(HttpResponseStatus.OK, GSON.toJson(state.call()));
+      return;
+    }
+    respondOnCompletion(job, timeoutSeconds, responder, state);
+  }
+
+  /**
+   * Gets whether an action is running on a service. With waitFor=completion, the response is held until the
+   * running action completes or the timeout in seconds expires, whichever comes first.
+   */
   @GET
   @Path("/services/{service}/{action}/status")
   public void getActionStatus(HttpRequest request, HttpResponder responder,
-                                      @PathParam("service") String service,
-                                      @PathParam("action") String action) {
-    responder.sendJson(HttpResponseStatus.OK, GSON.toJson(chaosMonkeyService.getActionStatus(service, action)));
+                              @PathParam("service") final String service,
+                              @PathParam("action") final String action,
+                              @QueryParam("waitFor") @DefaultValue("") String waitFor,
+                              @QueryParam("timeout") @DefaultValue("30") long timeoutSeconds) throws Exception {
+    Callable<Object> status = new Callable<Object>() {
+      @Override
+      public Object call() {
+        return chaosMonkeyService.getActionStatus(service, action);
+      }
+    };
+    DisruptionJobFuture job = chaosMonkeyService.getLatestJob(service, action);
+    if (job == null || !shouldWait(waitFor, timeoutSeconds)) {
+      responder.sendJson(HttpResponseStatus.OK, GSON.toJson(status.call()));
+      return;
+    }
+    respondOnCompletion(job, timeoutSeconds, responder, status);
   }
 
   /**
@@ -74,12 +136,36 @@ public class HttpHandler extends AbstractHttpHandler {
   }
 
   /**
-   * Gets the status of all services managed by chaos monkey
+   * Gets the status of all services managed by chaos monkey. The status is served from a periodically refreshed
+   * snapshot whose age in seconds is given in the Age header, unless fresh is set.
    */
   @GET
   @Path("/status")
-  public void getNodeStatuses(HttpRequest request, HttpResponder responder) throws Exception {
-    responder.sendJson(HttpResponseStatus.OK, GSON.toJson(chaosMonkeyService.getNodeStatuses()));
+  public void getNodeStatuses(HttpRequest request, HttpResponder responder,
+                              @QueryParam("fresh") @DefaultValue("false") boolean fresh) throws Exception {
+    StatusCache.Snapshot snapshot = fresh ? statusCache.refresh() : statusCache.getSnapshot();
+    HttpHeaders headers = new DefaultHttpHeaders();
+    headers.add(HttpHeaderNames.CONTENT_TYPE, "application/json");
+    headers.add(HttpHeaderNames.AGE, TimeUnit.MILLISECONDS.toSeconds(snapshot.getAgeMillis()));
+    responder.sendString(HttpResponseStatus.OK, GSON.toJson(snapshot.getStatuses()), headers);
+  }
+
+  /**
+   * Gets the time each halted service took to be seen down and to be running again
+   */
+  @GET
+  @Path("/recovery")
+  public void getRecoveryStats(HttpRequest request, HttpResponder responder) {
+    responder.sendJson(HttpResponseStatus.OK, GSON.toJson(chaosMonkeyService.getRecoveryStats()));
+  }
+
+  /**
+   * Gets the time a halted service took to be seen down and to be running again
+   */
+  @GET
+  @Path("/recovery/{service}")
+  public void getRecoveryStats(HttpRequest request, HttpResponder responder, @PathParam("service") String service) {
+    responder.sendJson(HttpResponseStatus.OK, GSON.toJson(chaosMonkeyService.getRecoveryStats(service)));
   }
 
   /**
@@ -90,4 +176,48 @@ public class HttpHandler extends AbstractHttpHandler {
   public void getServices(HttpRequest request, HttpResponder responder) throws Exception {
     responder.sendJson(HttpResponseStatus.OK, GSON.toJson(chaosMonkeyService.getServices()));
   }
+
+  private boolean shouldWait(String waitFor, long timeoutSeconds) {
+    if (waitFor.isEmpty()) {
+      return false;
+    }
+    if (!WAIT_FOR_COMPLETION.equals(waitFor)) {
+      throw new BadRequestException("Unsupported waitFor value: " + waitFor);
+    }
+    if (timeoutSeconds < 0) {
+      throw new BadRequestException("timeout must not be negative: " + timeoutSeconds);
+    }
+    return timeoutSeconds > 0;
+  }
+
+  /**
+   * Responds with the given body once the job is done or the timeout expires, without holding an HTTP worker thread
+   * while waiting.
+   */
+  private void respondOnCompletion(DisruptionJobFuture job, long timeoutSeconds, final HttpResponder responder,
+                                   final Callable<Object> body) {
+    final AtomicBoolean responded = new AtomicBoolean();
+    final Runnable respond = new Runnable() {
+      @Override
+      public void run() {
+        if (!responded.compareAndSet(false, true)) {
+          return;
+        }
+        try {
+          responder.sendJson(HttpResponseStatus.OK, GSON.toJson(body.call()));
+        } catch (Exception e) {
+          responder.sendString(HttpResponseStatus.INTERNAL_SERVER_ERROR, Throwables.getRootCause(e).getMessage());
+        }
+      }
+    };
+    final ScheduledFuture<?> timeout = WAIT_TIMER.schedule(respond, Math.min(timeoutSeconds, MAX_WAIT_SECONDS),
+                                                           TimeUnit.SECONDS);
+    job.addListener(new Runnable() {
+      @Override
+      public void run() {
+        timeout.cancel(false);
+        respond.run();
+      }
+    }, WAIT_TIMER);
+  }
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes blocking work, such as SSH commands, on a bounded pool of threads. Every task is submitted to a lane,
+ * for example the host it talks to. At most {@code maxThreads} tasks are in flight across all lanes and at most
+ * {@code maxPerLane} tasks of any single lane run at once; the remaining tasks wait in per-lane queues, so the
+ * number of threads does not grow with the amount of work.
+ */
+public class LaneExecutor {
+
+  private final String name;
+  private final ThreadPoolExecutor executor;
+  private final int maxPerLane;
+  private final ConcurrentMap<String, Lane> lanes;
+
+  /**
+   * @param name The name of this executor, used to name its threads
+   * @param maxThreads The maximum number of tasks running at once across all lanes
+   * @param maxPerLane The maximum number of tasks running at once in a single lane
+   */
+  public LaneExecutor(String name, int maxThreads, int maxPerLane) {
+    if (maxThreads < 1 || maxPerLane < 1) {
+      throw new IllegalArgumentException(String.format("maxThreads and maxPerLane must be at least 1: %d, %d",
+                                                       maxThreads, maxPerLane));
+    }
+    this.name = name;
+    this.executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                                           new LinkedBlockingQueue<Runnable>(),
+                                           new ThreadFactoryBuilder().setDaemon(true)
+                                             .setNameFormat(name + "-%d").build());
+    this.executor.allowCoreThreadTimeOut(true);
+    this.maxPerLane = maxPerLane;
+    this.lanes = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Submits a task to be executed in the given lane.
+   *
+   * @param lane The lane of the task, such as the address of the host the task talks to
+   * @param task The task to be executed
+   * @return A {@link ListenableFuture} of the result of the task
+   * @throws RejectedExecutionException if this executor has been shut down
+   */
+  public <T> ListenableFuture<T> submit(String lane, Callable<T> task) {
+    if (executor.isShutdown()) {
+      throw new RejectedExecutionException(name + " executor has been shut down");
+    }
+    ListenableFutureTask<T> futureTask = ListenableFutureTask.create(task);
+    getLane(lane).add(futureTask);
+    return futureTask;
+  }
+
+  /**
+   * Stops accepting tasks. Tasks that are already running are allowed to complete.
+   */
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  private Lane getLane(String key) {
+    Lane lane = lanes.get(key);
+    if (lane == null) {
+      Lane newLane = new Lane();
+      lane = lanes.putIfAbsent(key, newLane);
+      if (lane == null) {
+        lane = newLane;
+      }
+    }
+    return lane;
+  }
+
+  /**
+   * The queue of tasks of a single lane, from which at most {@code maxPerLane} tasks are handed to the pool.
+   */
+  private final class Lane {
+    private final Queue<ListenableFutureTask<?>> pending = new ArrayDeque<>();
+    private int running;
+
+    void add(ListenableFutureTask<?> task) {
+      synchronized (this) {
+        pending.add(task);
+      }
+      dispatch();
+    }
+
+    private void dispatch() {
+      while (true) {
+        final ListenableFutureTask<?> task;
+        synchronized (this) {
+          if (running >= maxPerLane || pending.isEmpty()) {
+            return;
+          }
+          task = pending.poll();
+          running++;
+        }
+        try {
+          executor.execute(new Runnable() {
+            @Override
+            public void run() {
+              try {
+                task.run();
+              } finally {
+                finished();
+              }
+            }
+          });
+        } catch (RejectedExecutionException e) {
+          // The executor was shut down, the remaining tasks of this lane will be cancelled as well
+          task.cancel(false);
+          synchronized (this) {
+            running--;
+          }
+        }
+      }
+    }
+
+    private void finished() {
+      synchronized (this) {
+        running--;
+      }
+      dispatch();
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of a service under test from the daemon, for an {@link AdaptiveController} to decide whether
+ * the service is meeting its objective.
+ */
+public abstract class LatencyProbe {
+
+  /**
+   * Performs one request against the service.
+   *
+   * @return The latency of the request, in milliseconds
+   * @throws IOException if the request failed or timed out
+   */
+  public long measureMillis() throws IOException {
+    long startNanos = System.nanoTime();
+    request();
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Performs one request against the service, failing if it does not succeed.
+   */
+  protected abstract void request() throws IOException;
+
+  /**
+   * Measures the time to open a TCP connection.
+   */
+  public static final class Tcp extends LatencyProbe {
+    private final String host;
+    private final int port;
+    private final int timeoutMillis;
+
+    public Tcp(String host, int port, int timeoutMillis) {
+      this.host = host;
+      this.port = port;
+      this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    protected void request() throws IOException {
+      try (Socket socket = new Socket()) {
+        socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return "tcp " + host + ":" + port;
+    }
+  }
+
+  /**
+   * Measures the time for a GET of a URL to return a 2xx status.
+   */
+  public static final class Http extends LatencyProbe {
+    private final String url;
+    private final int timeoutMillis;
+
+    public Http(String url, int timeoutMillis) {
+      this.url = url;
+      this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    protected void request() throws IOException {
+      HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+      try {
+        connection.setConnectTimeout(timeoutMillis);
+        connection.setReadTimeout(timeoutMillis);
+        int responseCode = connection.getResponseCode();
+        if (responseCode < 200 || responseCode >= 300) {
+          throw new IOException(String.format("GET %s returned %d", url, responseCode));
+        }
+      } finally {
+        connection.disconnect();
+      }
+    }
+
+    @Override
+    public String toString() {
+      return "http " + url;
+    }
+  }
+}
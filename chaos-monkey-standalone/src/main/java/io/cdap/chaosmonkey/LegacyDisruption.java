@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.chaosmonkey;
+
+import com.google.common.base.Throwables;
+import io.cdap.chaosmonkey.proto.ProcessOutcome;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Adapts a custom disruption compiled against the earlier {@link Disruption} interface, whose {@code disrupt} method
+ * returned nothing. Such a class has no implementation of the current method, and calling it directly would fail
+ * with an {@link AbstractMethodError}, so its {@code disrupt} method is called reflectively instead. As it does not
+ * report outcomes, every process is reported as succeeded once the method returns; an exception fails the job.
+ */
+final class LegacyDisruption implements Disruption {
+  private static final Logger LOG = LoggerFactory.getLogger(LegacyDisruption.class);
+  private static final String OUTCOME_MESSAGE = "Outcome not reported by the disruption";
+
+  private final Disruption disruption;
+  private final Method disrupt;
+
+  private LegacyDisruption(Disruption disruption, Method disrupt) {
+    this.disruption = disruption;
+    this.disrupt = disrupt;
+  }
+
+  /**
+   * Returns the given disruption, wrapped in an adapter if it only implements the earlier {@code disrupt} method.
+   */
+  static Disruption adapt(Disruption disruption) {
+    Method legacyDisrupt = findLegacyDisrupt(disruption.getClass());
+    if (legacyDisrupt == null) {
+      return disruption;
+    }
+    LOG.warn("{} implements the earlier Disruption interface, whose disrupt method returns nothing. Its processes "
+               + "will be reported as succeeded whenever it does not throw. Recompile it to return outcomes.",
+             disruption.getClass().getName());
+    legacyDisrupt.setAccessible(true);
+    return new LegacyDisruption(disruption, legacyDisrupt);
+  }
+
+  @Nullable
+  private static Method findLegacyDisrupt(Class<?> cls) {
+    Method legacyDisrupt = null;
+    for (Method method : cls.getMethods()) {
+      if (!"disrupt".equals(method.getName()) || Modifier.isAbstract(method.getModifiers())
+        || method.getParameterTypes().length != 2 || method.getParameterTypes()[0] != Collection.class
+        || method.getParameterTypes()[1] != Map.class) {
+        continue;
+      }
+      if (method.getReturnType() != void.class) {
+        // The current method is implemented
+        return null;
+      }
+      legacyDisrupt = method;
+    }
+    return legacyDisrupt;
+  }
+
+  @Override
+  public List<ProcessOutcome> disrupt(Collection<RemoteProcess> processes,
+                                      @Nullable Map<String, String> serviceArguments) throws Exception {
+    try {
+      disrupt.invoke(disruption, processes, serviceArguments);
+    } catch (InvocationTargetException e) {
+      Throwables.propagateIfPossible(e.getCause(), Exception.class);
+      throw Throwables.propagate(e.getCause());
+    }
+    List<ProcessOutcome> outcomes = new ArrayList<>();
+    for (RemoteProcess process : processes) {
+      outcomes.add(new ProcessOutcome(process.getAddress(), process.getName(), ProcessOutcome.Result.SUCCEEDED,
+                                      OUTCOME_MESSAGE));
+    }
+    return outcomes;
+  }
+
+  @Override
+  public String getName() {
+    return disruption.getName();
+  }
+}
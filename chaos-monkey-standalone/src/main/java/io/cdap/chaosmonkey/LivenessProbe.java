@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import com.jcraft.jsch.JSchException;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import javax.annotation.Nullable;
+
+/**
+ * Decides whether a process is running. Probes either run a command on the host of the process, which
+ * {@link HostStatusProbe} batches with the probes of the other processes on the host, or check the process from the
+ * daemon without going through SSH.
+ */
+public abstract class LivenessProbe {
+
+  /**
+   * Returns the command that exits with zero if and only if the process is running, or {@code null} if this probe
+   * checks the process from the daemon.
+   */
+  @Nullable
+  public String getCommand(RemoteProcess process) {
+    return null;
+  }
+
+  /**
+   * Returns whether the given process is running.
+   *
+   * @param process The process to be probed
+   * @return {@code true} if running, otherwise {@code false}
+   * @throws JSchException if the command of the probe could not be executed
+   */
+  public boolean isRunning(RemoteProcess process) throws JSchException {
+    String command = getCommand(process);
+    if (command == null) {
+      throw new IllegalStateException(getClass().getSimpleName() + " must either provide a command or override "
+                                        + "isRunning");
+    }
+    return process.execAndReturnSucessful(command);
+  }
+
+  /**
+   * Runs the status command of the init script with {@code sudo service <name> status}.
+   */
+  public static final class InitScript extends LivenessProbe {
+    @Override
+    public String getCommand(RemoteProcess process) {
+      return String.format("sudo service %s status", process.getName());
+    }
+  }
+
+  /**
+   * Runs the given command, for services whose status is checked by a custom script.
+   */
+  public static final class Command extends LivenessProbe {
+    private final String command;
+
+    public Command(String command) {
+      this.command = command;
+    }
+
+    @Override
+    public String getCommand(RemoteProcess process) {
+      return command;
+    }
+  }
+
+  /**
+   * Checks that the process in the pid file exists with {@code kill -0}. If the process belongs to another user,
+   * {@code kill} is not permitted to signal it and {@code ps} is used instead.
+   */
+  public static final class Pid extends LivenessProbe {
+    @Override
+    public String getCommand(RemoteProcess process) {
+      return String.format("pid=$(cat %s 2>/dev/null) && [ -n \"$pid\" ] && "
+                             + "{ kill -0 \"$pid\" 2>/dev/null || ps -p \"$pid\" >/dev/null 2>&1; }",
+                           process.getPidFile());
+    }
+  }
+
+  /**
+   * Checks that the process in the pid file exists in {@code /proc}, and that it started before the pid file was
+   * last written. A process that started later is another process that reused the pid of a dead one.
+   */
+  public static final class Proc extends LivenessProbe {
+    // The start time in /proc/<pid>/stat is in clock ticks since boot, and only second precision is needed
+    private static final String COMMAND = "pidfile=%s; pid=$(cat \"$pidfile\" 2>/dev/null) && [ -n \"$pid\" ] && "
+      + "procstat=$(cat /proc/\"$pid\"/stat 2>/dev/null) && "
+      + "ticks=$(echo \"${procstat##*) }\" | cut -d' ' -f20) && "
+      + "started=$(( $(awk '/^btime/ {print $2}' /proc/stat) + ticks / $(getconf CLK_TCK) )) && "
+      + "[ \"$started\" -le $(( $(stat -c %%Y \"$pidfile\") + 2 )) ]";
+
+    @Override
+    public String getCommand(RemoteProcess process) {
+      return String.format(COMMAND, process.getPidFile());
+    }
+  }
+
+  /**
+   * Checks from the daemon that a port accepts TCP connections on the host of the process.
+   */
+  public static final class Tcp extends LivenessProbe {
+    private final int port;
+    private final int timeoutMillis;
+
+    public Tcp(int port, int timeoutMillis) {
+      this.port = port;
+      this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public boolean isRunning(RemoteProcess process) {
+      try (Socket socket = new Socket()) {
+        socket.connect(new InetSocketAddress(process.getAddress(), port), timeoutMillis);
+        return true;
+      } catch (IOException e) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Checks from the daemon that a health URL responds with a 2xx status. The {@code {host}} placeholder in the URL
+   * is replaced by the address of the host of the process.
+   */
+  public static final class Http extends LivenessProbe {
+    private final String url;
+    private final int timeoutMillis;
+
+    public Http(String url, int timeoutMillis) {
+      this.url = url;
+      this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public boolean isRunning(RemoteProcess process) {
+      HttpURLConnection connection = null;
+      try {
+        connection = (HttpURLConnection) new URL(url.replace("{host}", process.getAddress())).openConnection();
+        connection.setConnectTimeout(timeoutMillis);
+        connection.setReadTimeout(timeoutMillis);
+        int responseCode = connection.getResponseCode();
+        return responseCode >= 200 && responseCode < 300;
+      } catch (IOException e) {
+        return false;
+      } finally {
+        if (connection != null) {
+          connection.disconnect();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import io.cdap.http.AbstractHandlerHook;
+import io.cdap.http.HttpResponder;
+import io.cdap.http.internal.HandlerInfo;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link io.cdap.http.HandlerHook} that records the latency and the number of requests of every route in the
+ * default {@link MetricsRegistry}. The route is named after the handler method that served the request. Handlers
+ * that respond asynchronously, such as long-polls, are timed until the handler method returns.
+ */
+public class MetricsHandlerHook extends AbstractHandlerHook {
+  // postCall may run on a different thread than preCall, so the start time travels with the request
+  private static final String START_HEADER = "X-ChaosMonkey-Start-Nanos";
+
+  @Override
+  public boolean preCall(HttpRequest request, HttpResponder responder, HandlerInfo handlerInfo) {
+    request.headers().set(START_HEADER, System.nanoTime());
+    return true;
+  }
+
+  @Override
+  public void postCall(HttpRequest request, HttpResponseStatus status, HandlerInfo handlerInfo) {
+    String route = getRoute(handlerInfo);
+    MetricsRegistry metrics = MetricsRegistry.getDefault();
+    metrics.counter("chaosmonkey_http_requests_total", "Number of HTTP requests by route and status code",
+                    "route", route, "code", String.valueOf(status.code())).inc();
+
+    String start = request.headers().get(START_HEADER);
+    if (start == null) {
+      return;
+    }
+    try {
+      long elapsedNanos = System.nanoTime() - Long.parseLong(start);
+      metrics.timer("chaosmonkey_http_request_seconds", "Latency of HTTP requests by route", "route", route)
+        .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    } catch (NumberFormatException e) {
+      // The header was sent by the client rather than set by preCall
+    }
+  }
+
+  private String getRoute(HandlerInfo handlerInfo) {
+    String handlerName = handlerInfo.getHandlerName();
+    return handlerName.substring(handlerName.lastIndexOf('.') + 1) + "." + handlerInfo.getMethodName();
+  }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Registry of the metrics of the daemon, rendered in the Prometheus text exposition format. Metrics are looked up
+ * by name and labels once and then updated without locking, so callers on hot paths should keep a reference to the
+ * {@link Counter} or {@link Timer} they update instead of looking it up every time.
+ */
+public class MetricsRegistry {
+  private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+  private final ConcurrentMap<String, Family> families;
+
+  public MetricsRegistry() {
+    this.families = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Returns the registry shared by the whole daemon.
+   */
+  public static MetricsRegistry getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Returns the counter with the given name and labels, creating it if needed.
+   *
+   * @param name The name of the metric
+   * @param help The description of the metric
+   * @param labels Label names and values, alternating
+   */
+  public Counter counter(String name, String help, String... labels) {
+    Family family = getFamily(name, help, Type.COUNTER);
+    String key = formatLabels(labels);
+    Object counter = family.metrics.get(key);
+    if (counter == null) {
+      Counter newCounter = new Counter();
+      counter = family.metrics.putIfAbsent(key, newCounter);
+      if (counter == null) {
+        counter = newCounter;
+      }
+    }
+    return (Counter) counter;
+  }
+
+  /**
+   * Returns the timer with the given name and labels, creating it if needed. Timers are rendered as summaries in
+   * seconds.
+   *
+   * @param name The name of the metric
+   * @param help The description of the metric
+   * @param labels Label names and values, alternating
+   */
+  public Timer timer(String name, String help, String... labels) {
+    Family family = getFamily(name, help, Type.SUMMARY);
+    String key = formatLabels(labels);
+    Object timer = family.metrics.get(key);
+    if (timer == null) {
+      Timer newTimer = new Timer();
+      timer = family.metrics.putIfAbsent(key, newTimer);
+      if (timer == null) {
+        timer = newTimer;
+      }
+    }
+    return (Timer) timer;
+  }
+
+  /**
+   * Registers a gauge with the given name and labels, replacing any gauge previously registered with them.
+   *
+   * @param name The name of the metric
+   * @param help The description of the metric
+   * @param gauge The {@link Gauge} providing the value
+   * @param labels Label names and values, alternating
+   */
+  public void gauge(String name, String help, Gauge gauge, String... labels) {
+    getFamily(name, help, Type.GAUGE).metrics.put(formatLabels(labels), gauge);
+  }
+
+  /**
+   * Renders all metrics in the Prometheus text exposition format.
+   */
+  public String toPrometheusText() {
+    StringBuilder builder = new StringBuilder();
+    for (Map.Entry<String, Family> entry : new TreeMap<>(families).entrySet()) {
+      String name = entry.getKey();
+      Family family = entry.getValue();
+      builder.append("# HELP ").append(name).append(' ').append(escapeHelp(family.help)).append('\n');
+      builder.append("# TYPE ").append(name).append(' ').append(family.type.name().toLowerCase()).append('\n');
+      for (Map.Entry<String, Object> metric : new TreeMap<>(family.metrics).entrySet()) {
+        String labels = metric.getKey();
+        switch (family.type) {
+          case COUNTER:
+            appendSample(builder, name, labels, ((Counter) metric.getValue()).get());
+            break;
+          case GAUGE:
+            appendSample(builder, name, labels, ((Gauge) metric.getValue()).getValue());
+            break;
+          case SUMMARY:
+            appendSummary(builder, name, labels, ((Timer) metric.getValue()).snapshot());
+            break;
+          default:
+            throw new IllegalStateException("Unknown metric type " + family.type);
+        }
+      }
+    }
+    return builder.toString();
+  }
+
+  private Family getFamily(String name, String help, Type type) {
+    Family family = families.get(name);
+    if (family == null) {
+      Family newFamily = new Family(help, type);
+      family = families.putIfAbsent(name, newFamily);
+      if (family == null) {
+        family = newFamily;
+      }
+    }
+    if (family.type != type) {
+      throw new IllegalArgumentException(String.format("Metric %s is a %s, not a %s", name, family.type, type));
+    }
+    return family;
+  }
+
+  private static void appendSummary(StringBuilder builder, String name, String labels,
+                                    LatencyHistogram.Snapshot snapshot) {
+    for (double quantile : QUANTILES) {
+      String quantileLabel = "quantile=\"" + quantile + "\"";
+      String withQuantile = labels.isEmpty() ? "{" + quantileLabel + "}"
+        : labels.substring(0, labels.length() - 1) + "," + quantileLabel + "}";
+      appendSample(builder, name, withQuantile, toSeconds(snapshot.getValueAtPercentile(quantile * 100)));
+    }
+    appendSample(builder, name + "_sum", labels, toSeconds(snapshot.getSum()));
+    appendSample(builder, name + "_count", labels, snapshot.getCount());
+  }
+
+  private static void appendSample(StringBuilder builder, String name, String labels, double value) {
+    builder.append(name).append(labels).append(' ');
+    if (value == Math.rint(value) && !Double.isInfinite(value)) {
+      builder.append((long) value);
+    } else {
+      builder.append(value);
+    }
+    builder.append('\n');
+  }
+
+  private static double toSeconds(long micros) {
+    return micros / 1e6;
+  }
+
+  private static String formatLabels(String... labels) {
+    if (labels.length % 2 != 0) {
+      throw new IllegalArgumentException("Labels must be given as name and value pairs");
+    }
+    if (labels.length == 0) {
+      return "";
+    }
+    StringBuilder builder = new StringBuilder("{");
+    for (int i = 0; i < labels.length; i += 2) {
+      if (i > 0) {
+        builder.append(',');
+      }
+      builder.append(labels[i]).append("=\"").append(escapeLabelValue(labels[i + 1])).append('"');
+    }
+    return builder.append('}').toString();
+  }
+
+  private static String escapeLabelValue(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  private static String escapeHelp(String help) {
+    return help.replace("\\", "\\\\").replace("\n", "\\n");
+  }
+
+  private enum Type {
+    COUNTER,
+    GAUGE,
+    SUMMARY
+  }
+
+  /**
+   * All metrics sharing a name, keyed by their rendered labels.
+   */
+  private static final class Family {
+    private final String help;
+    private final Type type;
+    private final ConcurrentMap<String, Object> metrics;
+
+    Family(String help, Type type) {
+      this.help = help;
+      this.type = type;
+      this.metrics = new ConcurrentHashMap<>();
+    }
+  }
+
+  /**
+   * A value sampled when the metrics are rendered.
+   */
+  public interface Gauge {
+
+    /**
+     * Returns the current value.
+     */
+    double getValue();
+  }
+
+  /**
+   * A monotonically increasing counter. Increments are spread over several cells, padded to separate cache lines,
+   * so that threads updating the same counter rarely contend on the same memory.
+   */
+  public static final class Counter {
+    private static final int STRIPES = Math.min(64, Integer.highestOneBit(
+      Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1);
+    // Number of longs in a cache line
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    public void inc() {
+      add(1);
+    }
+
+    public void add(long delta) {
+      cells.getAndAdd(stripe() * PADDING, delta);
+    }
+
+    public long get() {
+      long sum = 0;
+      for (int i = 0; i < STRIPES; i++) {
+        sum += cells.get(i * PADDING);
+      }
+      return sum;
+    }
+
+    private static int stripe() {
+      long id = Thread.currentThread().getId();
+      return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & (STRIPES - 1);
+    }
+  }
+
+  /**
+   * Records durations into a {@link LatencyHistogram} with microsecond resolution.
+   */
+  public static final class Timer {
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    public void record(long duration, TimeUnit unit) {
+      histogram.record(unit.toMicros(duration));
+    }
+
+    /**
+     * Records the time elapsed since the given value of {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+      record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public LatencyHistogram.Snapshot snapshot() {
+      return histogram.snapshot();
+    }
+  }
+}
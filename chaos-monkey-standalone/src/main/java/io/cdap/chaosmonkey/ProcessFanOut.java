@@ -0,0 +1,272 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.cdap.chaosmonkey.common.Constants;
+import io.cdap.chaosmonkey.proto.ProcessOutcome;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * Runs an action against a collection of processes concurrently and collects the outcome for each process, so
+ * that a disruption hits all of its targets at nearly the same time instead of one after the other. Actions run on
+ * a shared {@link LaneExecutor} with one lane per host, so the number of threads and the number of actions against a
+ * single host stay bounded however many processes are targeted. Actions must not fan out on several processes
+ * themselves, as they could then wait on threads held by their own callers.
+ */
+public final class ProcessFanOut {
+  private static final Logger LOG = LoggerFactory.getLogger(ProcessFanOut.class);
+
+  /**
+   * Service argument for the maximum number of processes acted on at once, only bounded by the shared executor if
+   * absent or not positive.
+   */
+  public static final String PARALLELISM = "parallelism";
+
+  private static volatile LaneExecutor defaultExecutor;
+
+  private ProcessFanOut() {
+  }
+
+  /**
+   * An action performed on a single process.
+   */
+  public interface ProcessAction {
+
+    /**
+     * Acts on the given process.
+     *
+     * @param process The process to act on
+     * @return The result of the action
+     * @throws Exception if the action could not be performed, the process is then reported as failed
+     */
+    ProcessOutcome.Result apply(RemoteProcess process) throws Exception;
+  }
+
+  /**
+   * An action performed on a single process that reports its own {@link ProcessOutcome}.
+   */
+  public interface OutcomeAction {
+
+    /**
+     * Acts on the given process.
+     *
+     * @param process The process to act on
+     * @return The outcome of the action
+     * @throws Exception if the action could not be performed, the process is then reported as failed
+     */
+    ProcessOutcome apply(RemoteProcess process) throws Exception;
+  }
+
+  /**
+   * Returns the executor running the actions, creating one with the default limits if none was set.
+   */
+  static LaneExecutor getExecutor() {
+    LaneExecutor executor = defaultExecutor;
+    if (executor == null) {
+      synchronized (ProcessFanOut.class) {
+        executor = defaultExecutor;
+        if (executor == null) {
+          executor = new LaneExecutor("process-fan-out", Constants.Disruption.DEFAULT_FAN_OUT_MAX_THREADS,
+                                      Constants.Disruption.DEFAULT_FAN_OUT_MAX_PER_HOST);
+          defaultExecutor = executor;
+        }
+      }
+    }
+    return executor;
+  }
+
+  /**
+   * Sets the executor running the actions. The previous executor is shut down once its running actions complete.
+   */
+  public static synchronized void setExecutor(LaneExecutor executor) {
+    LaneExecutor previous = defaultExecutor;
+    defaultExecutor = executor;
+    if (previous != null) {
+      previous.shutdown();
+    }
+  }
+
+  /**
+   * Returns the parallelism set in the given service arguments, or {@code 0} for unbounded parallelism.
+   *
+   * @throws IllegalArgumentException if the parallelism is not a number
+   */
+  public static int getParallelism(@Nullable Map<String, String> serviceArguments) {
+    if (serviceArguments == null || serviceArguments.get(PARALLELISM) == null) {
+      return 0;
+    }
+    String parallelism = serviceArguments.get(PARALLELISM);
+    try {
+      return Math.max(0, Integer.parseInt(parallelism));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("parallelism must be an integer: " + parallelism, e);
+    }
+  }
+
+  /**
+   * Applies the action to every process and waits for all of them to complete.
+   *
+   * @param processes The processes to act on
+   * @param parallelism The maximum number of processes acted on at once, {@code 0} for no limit
+   * @param action The action to apply
+   * @return The outcome for each process, in the iteration order of processes
+   * @throws InterruptedException if interrupted while waiting, the pending actions are then interrupted too
+   */
+  public static List<ProcessOutcome> run(Collection<RemoteProcess> processes, int parallelism,
+                                         final ProcessAction action) throws InterruptedException {
+    return runWithOutcomes(processes, parallelism, new OutcomeAction() {
+      @Override
+      public ProcessOutcome apply(RemoteProcess process) throws Exception {
+        return new ProcessOutcome(process.getAddress(), process.getName(), action.apply(process), null);
+      }
+    });
+  }
+
+  /**
+   * Applies the action to every process and waits for all of them to complete.
+   *
+   * @param processes The processes to act on
+   * @param parallelism The maximum number of processes acted on at once, {@code 0} for no limit other than the one
+   *                    of the shared executor
+   * @param action The action to apply
+   * @return The outcome for each process, in the iteration order of processes
+   * @throws InterruptedException if interrupted while waiting, the pending actions are then interrupted too
+   */
+  public static List<ProcessOutcome> runWithOutcomes(Collection<RemoteProcess> processes, int parallelism,
+                                                     OutcomeAction action) throws InterruptedException {
+    List<RemoteProcess> targets = new ArrayList<>(processes);
+    int workers = parallelism <= 0 ? targets.size() : Math.min(parallelism, targets.size());
+
+    if (workers <= 1) {
+      ProcessOutcome[] outcomes = new ProcessOutcome[targets.size()];
+      for (int i = 0; i < targets.size(); i++) {
+        outcomes[i] = apply(action, targets.get(i));
+      }
+      return Arrays.asList(outcomes);
+    }
+    return new FanOut(getExecutor(), targets, action).run(workers);
+  }
+
+  private static ProcessOutcome apply(OutcomeAction action, RemoteProcess process) {
+    try {
+      return action.apply(process);
+    } catch (Exception e) {
+      LOG.error("Failed to disrupt {} on {}", process.getName(), process.getAddress(), e);
+      return new ProcessOutcome(process.getAddress(), process.getName(), ProcessOutcome.Result.FAILED,
+                                e.getMessage());
+    }
+  }
+
+  /**
+   * A single fan-out, which keeps at most a given number of its actions submitted to the executor and submits the
+   * next one as each completes.
+   */
+  private static final class FanOut {
+    private final LaneExecutor executor;
+    private final List<RemoteProcess> targets;
+    private final OutcomeAction action;
+    private final ProcessOutcome[] outcomes;
+    private final AtomicInteger next;
+    private final CountDownLatch completed;
+    private final List<Future<?>> futures;
+    private volatile boolean cancelled;
+
+    FanOut(LaneExecutor executor, List<RemoteProcess> targets, OutcomeAction action) {
+      this.executor = executor;
+      this.targets = targets;
+      this.action = action;
+      this.outcomes = new ProcessOutcome[targets.size()];
+      this.next = new AtomicInteger();
+      this.completed = new CountDownLatch(targets.size());
+      this.futures = new CopyOnWriteArrayList<>();
+    }
+
+    List<ProcessOutcome> run(int workers) throws InterruptedException {
+      for (int i = 0; i < workers; i++) {
+        submitNext();
+      }
+      try {
+        completed.await();
+      } catch (InterruptedException e) {
+        cancelled = true;
+        for (Future<?> future : futures) {
+          future.cancel(true);
+        }
+        throw e;
+      }
+      for (int i = 0; i < outcomes.length; i++) {
+        if (outcomes[i] == null) {
+          // The action was cancelled before it ran, because the executor was shut down
+          RemoteProcess process = targets.get(i);
+          outcomes[i] = new ProcessOutcome(process.getAddress(), process.getName(), ProcessOutcome.Result.FAILED,
+                                           "Cancelled before running");
+        }
+      }
+      return Arrays.asList(outcomes);
+    }
+
+    private void submitNext() {
+      while (!cancelled) {
+        final int index = next.getAndIncrement();
+        if (index >= targets.size()) {
+          return;
+        }
+        final RemoteProcess process = targets.get(index);
+        ListenableFuture<Void> future;
+        try {
+          future = executor.submit(process.getAddress(), new Callable<Void>() {
+            @Override
+            public Void call() {
+              outcomes[index] = apply(action, process);
+              return null;
+            }
+          });
+        } catch (RejectedExecutionException e) {
+          outcomes[index] = new ProcessOutcome(process.getAddress(), process.getName(),
+                                               ProcessOutcome.Result.FAILED, e.getMessage());
+          completed.countDown();
+          continue;
+        }
+        futures.add(future);
+        future.addListener(new Runnable() {
+          @Override
+          public void run() {
+            completed.countDown();
+            submitNext();
+          }
+        }, MoreExecutors.sameThreadExecutor());
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+/**
+ * Decides whether a restarted process is ready to serve again.
+ */
+public interface ReadinessProbe {
+
+  /**
+   * Returns whether the given process is ready.
+   *
+   * @param process The process to be probed
+   * @return {@code true} if ready, otherwise {@code false}
+   * @throws Exception if the process could not be probed, it is then considered not ready
+   */
+  boolean isReady(RemoteProcess process) throws Exception;
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.cdap.chaosmonkey.common.Constants;
+import io.cdap.chaosmonkey.proto.RecoveryStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * Measures how long services take to recover from halting disruptions. After a process is halted, it is polled
+ * until it is running again, whether it was brought back by a supervisor or by another disruption, and the time to
+ * see it down and the time to see it running again are recorded in per-service {@link LatencyHistogram}s. Once a
+ * process is running again it is released from the {@link BlastRadiusBudget}. A process that is still down when the
+ * timeout expires is counted as unrecovered and flagged as stuck: it keeps its reservation, since it is still down,
+ * and is polled less often until it is seen running again or is started explicitly.
+ */
+public class RecoveryTracker {
+  private static final Logger LOG = LoggerFactory.getLogger(RecoveryTracker.class);
+  private static final int POLL_THREADS = 4;
+  private static final long STUCK_POLL_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+  private static volatile RecoveryTracker defaultTracker;
+
+  private final ScheduledExecutorService poller;
+  private final long pollIntervalMillis;
+  private final long timeoutMillis;
+  private final ConcurrentMap<String, ServiceRecovery> services;
+  private final ConcurrentMap<String, Watch> watched;
+
+  /**
+   * @param pollIntervalMillis The interval between two checks of a halted process
+   * @param timeoutSeconds The time after which a process that is still not running is counted as unrecovered
+   */
+  public RecoveryTracker(long pollIntervalMillis, long timeoutSeconds) {
+    if (pollIntervalMillis <= 0 || timeoutSeconds <= 0) {
+      throw new IllegalArgumentException(String.format("pollIntervalMillis and timeoutSeconds must be positive: %d, %d",
+                                                       pollIntervalMillis, timeoutSeconds));
+    }
+    this.pollIntervalMillis = pollIntervalMillis;
+    this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+    this.poller = Executors.newScheduledThreadPool(
+      POLL_THREADS, new ThreadFactoryBuilder().setDaemon(true).setNameFormat("recovery-tracker-%d").build());
+    this.services = new ConcurrentHashMap<>();
+    this.watched = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Returns the tracker used by halting disruptions, creating one with the default settings if none was set.
+   */
+  public static RecoveryTracker getDefault() {
+    RecoveryTracker tracker = defaultTracker;
+    if (tracker == null) {
+      synchronized (RecoveryTracker.class) {
+        tracker = defaultTracker;
+        if (tracker == null) {
+          tracker = new RecoveryTracker(Constants.Recovery.DEFAULT_POLL_INTERVAL_MILLIS,
+                                        Constants.Recovery.DEFAULT_TIMEOUT_SECONDS);
+          defaultTracker = tracker;
+        }
+      }
+    }
+    return tracker;
+  }
+
+  /**
+   * Sets the tracker used by halting disruptions.
+   */
+  public static synchronized void setDefault(RecoveryTracker tracker) {
+    defaultTracker = tracker;
+  }
+
+  /**
+   * Records that a process was seen down and watches it until it is running again. A process that is already
+   * watched keeps its original disruption time.
+   *
+   * @param process The halted process
+   * @param disruptedAt The time at which the disruption started, in milliseconds since epoch
+   * @param downAt The time at which the process was seen down, in milliseconds since epoch
+   * @param reservation The reservation of the process in the {@link BlastRadiusBudget}, released once the process is
+   *                    no longer watched
+   */
+  public void watch(RemoteProcess process, long disruptedAt, long downAt, BlastRadiusBudget.Reservation reservation) {
+    String key = getKey(process);
+    ServiceRecovery recovery = getServiceRecovery(process.getName());
+    recovery.timeToDetectDown.record(downAt - disruptedAt);
+    Watch watch = new Watch(key, process, recovery, disruptedAt, reservation);
+    if (watched.putIfAbsent(key, watch) != null) {
+      reservation.release();
+      return;
+    }
+    recovery.watching.incrementAndGet();
+    schedule(watch, pollIntervalMillis);
+  }
+
+  /**
+   * Records that a process was started explicitly. A process that is stuck, that is that did not recover within the
+   * timeout, is then no longer watched nor counted as down.
+   */
+  public void started(RemoteProcess process) {
+    Watch watch = watched.get(getKey(process));
+    if (watch != null && watch.stuck) {
+      LOG.info("{} on {} was started after being stuck down", process.getName(), process.getAddress());
+      watch.done();
+    }
+  }
+
+  /**
+   * Returns the recovery statistics of every service that was halted.
+   */
+  public List<RecoveryStats> getStats() {
+    List<RecoveryStats> stats = new ArrayList<>();
+    for (Map.Entry<String, ServiceRecovery> entry : new TreeMap<>(services).entrySet()) {
+      stats.add(entry.getValue().toStats(entry.getKey()));
+    }
+    return stats;
+  }
+
+  /**
+   * Returns the recovery statistics of a service, or {@code null} if it was never halted.
+   */
+  @Nullable
+  public RecoveryStats getStats(String service) {
+    ServiceRecovery recovery = services.get(service);
+    return recovery == null ? null : recovery.toStats(service);
+  }
+
+  /**
+   * Stops watching processes.
+   */
+  public void shutdown() {
+    poller.shutdownNow();
+  }
+
+  private ServiceRecovery getServiceRecovery(String service) {
+    ServiceRecovery recovery = services.get(service);
+    if (recovery == null) {
+      ServiceRecovery newRecovery = new ServiceRecovery();
+      recovery = services.putIfAbsent(service, newRecovery);
+      if (recovery == null) {
+        recovery = newRecovery;
+        final AtomicInteger stuck = newRecovery.stuck;
+        MetricsRegistry.getDefault().gauge("chaosmonkey_recovery_stuck",
+                                           "Number of halted processes still down past the recovery timeout",
+                                           new MetricsRegistry.Gauge() {
+                                             @Override
+                                             public double getValue() {
+                                               return stuck.get();
+                                             }
+                                           }, "service", service);
+      }
+    }
+    return recovery;
+  }
+
+  private static String getKey(RemoteProcess process) {
+    return process.getName() + "@" + process.getAddress();
+  }
+
+  private void schedule(Watch watch, long delayMillis) {
+    try {
+      poller.schedule(watch, delayMillis, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      watch.done();
+    }
+  }
+
+  /**
+   * Polls a single halted process until it is running again or the timeout expires.
+   */
+  private final class Watch implements Runnable {
+    private final String key;
+    private final RemoteProcess process;
+    private final ServiceRecovery recovery;
+    private final long disruptedAt;
+    private final BlastRadiusBudget.Reservation reservation;
+    private final AtomicBoolean finished;
+    private volatile boolean stuck;
+
+    Watch(String key, RemoteProcess process, ServiceRecovery recovery, long disruptedAt,
+          BlastRadiusBudget.Reservation reservation) {
+      this.key = key;
+      this.process = process;
+      this.recovery = recovery;
+      this.disruptedAt = disruptedAt;
+      this.reservation = reservation;
+      this.finished = new AtomicBoolean();
+    }
+
+    @Override
+    public void run() {
+      if (finished.get()) {
+        return;
+      }
+      boolean running = false;
+      try {
+        running = process.isRunning();
+      } catch (Exception e) {
+        LOG.debug("Unable to check whether {} on {} recovered", process.getName(), process.getAddress(), e);
+      }
+      long elapsed = System.currentTimeMillis() - disruptedAt;
+      if (running && stuck) {
+        LOG.info("{} on {} is running again {} ms after being disrupted, past the recovery timeout",
+                 process.getName(), process.getAddress(), elapsed);
+        done();
+      } else if (running) {
+        LOG.info("{} on {} recovered {} ms after being disrupted", process.getName(), process.getAddress(), elapsed);
+        recovery.timeToRecover.record(elapsed);
+        done();
+      } else if (!stuck && elapsed >= timeoutMillis) {
+        LOG.warn("{} on {} did not recover within {} seconds, it stays counted as down until it runs again",
+                 process.getName(), process.getAddress(), TimeUnit.MILLISECONDS.toSeconds(timeoutMillis));
+        recovery.unrecovered.incrementAndGet();
+        recovery.stuck.incrementAndGet();
+        stuck = true;
+        schedule(this, Math.max(pollIntervalMillis, STUCK_POLL_INTERVAL_MILLIS));
+      } else {
+        schedule(this, stuck ? Math.max(pollIntervalMillis, STUCK_POLL_INTERVAL_MILLIS) : pollIntervalMillis);
+      }
+    }
+
+    void done() {
+      if (!finished.compareAndSet(false, true)) {
+        return;
+      }
+      if (stuck) {
+        recovery.stuck.decrementAndGet();
+      }
+      recovery.watching.decrementAndGet();
+      watched.remove(key, this);
+      reservation.release();
+    }
+  }
+
+  /**
+   * The recovery measurements of a single service.
+   */
+  private static final class ServiceRecovery {
+    private final LatencyHistogram timeToDetectDown = new LatencyHistogram();
+    private final LatencyHistogram timeToRecover = new LatencyHistogram();
+    private final AtomicLong unrecovered = new AtomicLong();
+    private final AtomicInteger watching = new AtomicInteger();
+    private final AtomicInteger stuck = new AtomicInteger();
+
+    RecoveryStats toStats(String service) {
+      LatencyHistogram.Snapshot recovered = timeToRecover.snapshot();
+      return new RecoveryStats(service, recovered.getCount(), unrecovered.get(), watching.get(), stuck.get(),
+                               timeToDetectDown.snapshot().toSummary(), recovered.toSummary());
+    }
+  }
+}
@@ -16,32 +16,53 @@
 
 package io.cdap.chaosmonkey;
 
+import io.cdap.chaosmonkey.proto.ProcessOutcome;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 
 /**
- * A disruption that restarts a process
+ * A disruption that restarts a process. The process counts against the {@link BlastRadiusBudget} while it restarts.
  */
 public class Restart implements Disruption {
   private static final Logger LOGGER = LoggerFactory.getLogger(Restart.class);
 
   @Override
-  public void disrupt(Collection<RemoteProcess> processes, @Nullable Map<String, String> serviceArguments)
-    throws Exception {
-    for (RemoteProcess process : processes) {
-      LOGGER.info("Attempting to restart {} on {}", process.getName(), process.getAddress());
+  public List<ProcessOutcome> disrupt(Collection<RemoteProcess> processes,
+                                      @Nullable Map<String, String> serviceArguments) throws Exception {
+    int parallelism = ProcessFanOut.getParallelism(serviceArguments);
+    return ProcessFanOut.run(processes, parallelism, new ProcessFanOut.ProcessAction() {
+      @Override
+      public ProcessOutcome.Result apply(RemoteProcess process) throws Exception {
+        return restartProcess(process);
+      }
+    });
+  }
+
+  private ProcessOutcome.Result restartProcess(RemoteProcess process) throws Exception {
+    BlastRadiusBudget.Reservation reservation = BlastRadiusBudget.getDefault().tryReserve(process);
+    if (reservation == null) {
+      return ProcessOutcome.Result.SKIPPED;
+    }
+    LOGGER.info("Attempting to restart {} on {}", process.getName(), process.getAddress());
+    boolean running;
+    try {
       process.execAndGetReturnCode(String.format("sudo service %s %s", process.getName(), this.getName()));
+      running = process.isRunning();
+    } finally {
+      reservation.release();
+    }
 
-      if (process.isRunning()) {
-        LOGGER.info("{} on {} is now running", process.getName(), process.getAddress());
-      } else {
-        LOGGER.info("{} on {} did not restart", process.getName(), process.getAddress());
-      }
+    if (running) {
+      LOGGER.info("{} on {} is now running", process.getName(), process.getAddress());
+      return ProcessOutcome.Result.SUCCEEDED;
     }
+    LOGGER.info("{} on {} did not restart", process.getName(), process.getAddress());
+    return ProcessOutcome.Result.FAILED;
   }
 
   @Override
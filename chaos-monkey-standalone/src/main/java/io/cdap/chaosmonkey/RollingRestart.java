@@ -16,65 +16,297 @@
 
 package io.cdap.chaosmonkey;
 
+import io.cdap.chaosmonkey.proto.ProcessOutcome;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
- * Restarts given service on each node sequentially
+ * Restarts given service across its nodes in waves, by default one node at a time. Each node of a wave is kept
+ * down for a fixed time, and the next wave is restarted after a fixed delay. In readiness mode a wave is complete as
+ * soon as its restarted nodes pass a {@link ReadinessProbe}, and the roll is aborted if a node does not become ready
+ * within the recovery timeout. A node that the {@link BlastRadiusBudget} does not allow down yet is waited for,
+ * and skipped if the budget does not allow it in time.
  */
 public class RollingRestart implements Disruption {
   private static final Logger LOG = LoggerFactory.getLogger(RollingRestart.class);
   private static final Start start = new Start();
-  private static final Stop stop = new Stop();
+  // Processes are started again by the roll itself, so their recovery is not representative
+  private static final Stop stop = new Stop(false);
+
+  public static final String RESTART_TIME = "restartTime";
+  public static final String DELAY = "delay";
+  public static final String MODE = "mode";
+  public static final String RECOVERY_TIMEOUT = "recoveryTimeout";
+  public static final String READINESS_COMMAND = "readinessCommand";
+  public static final String MAX_UNAVAILABLE = "maxUnavailable";
+  public static final String WAVE_DELAY = "waveDelay";
+
+  public static final String MODE_FIXED = "fixed";
+  public static final String MODE_READINESS = "readiness";
+
+  private static final int DEFAULT_RESTART_TIME_SECONDS = 30;
+  private static final int DEFAULT_DELAY_SECONDS = 120;
+  private static final int DEFAULT_RECOVERY_TIMEOUT_SECONDS = 300;
+  private static final long INITIAL_BACKOFF_MILLIS = 250;
+  private static final long MAX_BACKOFF_MILLIS = 5000;
 
   /**
    * Starts a rolling restart on given list of processes.
    *
    * @param processes List of processes to rolling restart, must be of same type
    * @param serviceArguments Optional, configuration for delay and duration of rolling restart
+   * @return The outcome of the restart on each process
    * @throws Exception
    */
   @Override
-  public void disrupt(Collection<RemoteProcess> processes, @Nullable Map<String, String> serviceArguments)
-    throws Exception {
+  public List<ProcessOutcome> disrupt(Collection<RemoteProcess> processes,
+                                      @Nullable Map<String, String> serviceArguments) throws Exception {
     if (serviceArguments == null) {
-      disrupt(processes, null, null);
-    } else {
-      Integer restartTime = serviceArguments.get("restartTime") == null ? null :
-        new Integer(serviceArguments.get("restartTime"));
-      Integer delay = serviceArguments.get("delay") == null ? null : new Integer(serviceArguments.get("delay"));
-      disrupt(processes, restartTime, delay);
+      return disrupt(processes, null, null);
     }
+    Integer restartTime = getInteger(serviceArguments, RESTART_TIME);
+    Integer delay = getInteger(serviceArguments, DELAY);
+    Integer waveDelay = getInteger(serviceArguments, WAVE_DELAY);
+    int maxUnavailable = getMaxUnavailable(serviceArguments.get(MAX_UNAVAILABLE), processes.size());
+    String mode = serviceArguments.get(MODE) == null ? MODE_FIXED : serviceArguments.get(MODE);
+
+    if (MODE_FIXED.equals(mode)) {
+      return disrupt(processes, maxUnavailable, getSeconds(restartTime, DEFAULT_RESTART_TIME_SECONDS),
+                     getSeconds(waveDelay == null ? delay : waveDelay, DEFAULT_DELAY_SECONDS), null, 0);
+    }
+    if (!MODE_READINESS.equals(mode)) {
+      throw new IllegalArgumentException(String.format("Unknown %s for %s: %s", MODE, getName(), mode));
+    }
+    Integer recoveryTimeout = getInteger(serviceArguments, RECOVERY_TIMEOUT);
+    return disrupt(processes, maxUnavailable, getSeconds(restartTime, 0),
+                   getSeconds(waveDelay == null ? delay : waveDelay, 0),
+                   getReadinessProbe(serviceArguments.get(READINESS_COMMAND)),
+                   getSeconds(recoveryTimeout, DEFAULT_RECOVERY_TIMEOUT_SECONDS));
   }
 
   /**
-   * Starts a rolling restart on given list of processes.
+   * Starts a rolling restart on given list of processes, one process at a time.
    *
    * @param processes List of processes to rolling restart, must be of same type
    * @param restartTime Optional, number of seconds a service is down before restarting
    * @param delay Optional, number of seconds between restarting service on different nodes
+   * @return The outcome of the restart on each process
+   * @throws Exception
+   */
+  public List<ProcessOutcome> disrupt(Collection<RemoteProcess> processes, @Nullable Integer restartTime,
+                                      @Nullable Integer delay) throws Exception {
+    return disrupt(processes, 1, getSeconds(restartTime, DEFAULT_RESTART_TIME_SECONDS),
+                   getSeconds(delay, DEFAULT_DELAY_SECONDS), null, 0);
+  }
+
+  /**
+   * Starts a rolling restart on given list of processes. The processes are restarted in waves of at most
+   * maxUnavailable processes, the processes of a wave being restarted concurrently. With a {@link ReadinessProbe},
+   * a wave is complete once all of its processes are ready; if a process does not become ready within the recovery
+   * timeout the roll is aborted and the remaining processes are left untouched.
+   *
+   * @param processes List of processes to rolling restart, must be of same type
+   * @param maxUnavailable Maximum number of processes down at once
+   * @param restartTime Number of seconds a service is down before restarting
+   * @param waveDelay Number of seconds between the end of a wave and the start of the next one
+   * @param probe Optional, the {@link ReadinessProbe} deciding whether a restarted process is ready
+   * @param recoveryTimeout Number of seconds a restarted process has to become ready, ignored without a probe
+   * @return The outcome of the restart on each process
    * @throws Exception
    */
-  public void disrupt(Collection<RemoteProcess> processes, @Nullable Integer restartTime,
-                      @Nullable Integer delay) throws Exception {
+  public List<ProcessOutcome> disrupt(Collection<RemoteProcess> processes, int maxUnavailable,
+                                      final int restartTime, int waveDelay, @Nullable final ReadinessProbe probe,
+                                      final int recoveryTimeout) throws Exception {
     if (processes.size() < 1) {
       throw new IllegalArgumentException("Process list has an invalid size of: " + processes.size());
     }
+    if (maxUnavailable < 1) {
+      throw new IllegalArgumentException(MAX_UNAVAILABLE + " must be at least 1: " + maxUnavailable);
+    }
 
-    restartTime = (restartTime == null || restartTime < 0) ? 30 : restartTime;
-    delay = (delay == null || delay < 0) ? 120 : delay;
+    List<RemoteProcess> targets = new ArrayList<>(processes);
+    List<ProcessOutcome> outcomes = new ArrayList<>();
+    boolean aborted = false;
+    for (int from = 0; from < targets.size(); from += maxUnavailable) {
+      List<RemoteProcess> wave = targets.subList(from, Math.min(targets.size(), from + maxUnavailable));
+      if (aborted) {
+        for (RemoteProcess process : wave) {
+          outcomes.add(new ProcessOutcome(process.getAddress(), process.getName(), ProcessOutcome.Result.SKIPPED,
+                                          "Rolling restart was aborted"));
+        }
+        continue;
+      }
+      if (from > 0) {
+        TimeUnit.SECONDS.sleep(waveDelay);
+      }
+      List<ProcessOutcome> waveOutcomes = ProcessFanOut.runWithOutcomes(wave, 0, new ProcessFanOut.OutcomeAction() {
+        @Override
+        public ProcessOutcome apply(RemoteProcess process) throws Exception {
+          return restart(process, restartTime, probe, recoveryTimeout);
+        }
+      });
+      outcomes.addAll(waveOutcomes);
 
-    for (RemoteProcess process : processes) {
-      stop.disrupt(Arrays.asList(process), null);
-      TimeUnit.SECONDS.sleep(restartTime);
-      start.disrupt(Arrays.asList(process), null);
-      TimeUnit.SECONDS.sleep(delay);
+      if (probe != null) {
+        for (ProcessOutcome outcome : waveOutcomes) {
+          // Moving on would take down more nodes while this one is in an unknown state
+          if (outcome.getResult() == ProcessOutcome.Result.FAILED) {
+            LOG.error("Aborting rolling restart of {}, {} did not recover: {}", outcome.getService(),
+                      outcome.getAddress(), outcome.getMessage());
+            aborted = true;
+          }
+        }
+      }
+    }
+    return outcomes;
+  }
+
+  /**
+   * Restarts a process once the {@link BlastRadiusBudget} allows it to go down, keeping it reserved until the restart
+   * is over.
+   */
+  private ProcessOutcome restart(RemoteProcess process, int restartTime, @Nullable ReadinessProbe probe,
+                                 int recoveryTimeout) throws Exception {
+    BlastRadiusBudget.Reservation reservation = BlastRadiusBudget.getDefault().reserve(process);
+    if (reservation == null) {
+      return new ProcessOutcome(process.getAddress(), process.getName(), ProcessOutcome.Result.SKIPPED,
+                                "Blast radius budget exhausted");
+    }
+    try {
+      return restartReserved(process, restartTime, probe, recoveryTimeout);
+    } finally {
+      reservation.release();
+    }
+  }
+
+  private ProcessOutcome restartReserved(RemoteProcess process, int restartTime, @Nullable ReadinessProbe probe,
+                                         int recoveryTimeout) throws Exception {
+    ProcessOutcome stopOutcome = stop.disrupt(Arrays.asList(process), null).get(0);
+    if (probe != null && stopOutcome.getResult() == ProcessOutcome.Result.FAILED) {
+      return stopOutcome;
+    }
+    TimeUnit.SECONDS.sleep(restartTime);
+    if (probe == null) {
+      ProcessOutcome startOutcome = start.disrupt(Arrays.asList(process), null).get(0);
+      // A process that could not be stopped was not restarted, even if it is running afterwards
+      return stopOutcome.getResult() == ProcessOutcome.Result.FAILED ? stopOutcome : startOutcome;
+    }
+
+    // The process is usually not up yet when the start command returns, the probe decides whether it came back
+    LOG.info("Starting {} on {}", process.getName(), process.getAddress());
+    int returnCode = process.execAndGetReturnCode(String.format("sudo service %s %s", process.getName(),
+                                                                start.getName()));
+    if (returnCode != 0) {
+      LOG.debug("Start of {} on {} returned {}, waiting for readiness anyway", process.getName(),
+                process.getAddress(), returnCode);
+    }
+    long startTime = System.currentTimeMillis();
+    if (!awaitReady(process, probe, TimeUnit.SECONDS.toMillis(recoveryTimeout))) {
+      return new ProcessOutcome(process.getAddress(), process.getName(), ProcessOutcome.Result.FAILED,
+                                String.format("Not ready after %d seconds", recoveryTimeout));
+    }
+    long readyMillis = System.currentTimeMillis() - startTime;
+    LOG.info("{} on {} is ready {} ms after start", process.getName(), process.getAddress(), readyMillis);
+    return new ProcessOutcome(process.getAddress(), process.getName(), ProcessOutcome.Result.SUCCEEDED,
+                              String.format("Ready %d ms after start", readyMillis));
+  }
+
+  /**
+   * Polls the probe with exponential backoff until the process is ready or the timeout expires.
+   *
+   * @return {@code true} if the process became ready, {@code false} if the timeout expired
+   */
+  private boolean awaitReady(RemoteProcess process, ReadinessProbe probe, long timeoutMillis)
+    throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    long backoff = INITIAL_BACKOFF_MILLIS;
+    while (true) {
+      try {
+        if (probe.isReady(process)) {
+          return true;
+        }
+      } catch (Exception e) {
+        LOG.debug("Unable to probe {} on {}, considering it not ready", process.getName(), process.getAddress(), e);
+      }
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        return false;
+      }
+      TimeUnit.MILLISECONDS.sleep(Math.min(backoff, remaining));
+      backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+    }
+  }
+
+  /**
+   * Returns a probe that runs the given command on the node, or checks that the process is running if there is no
+   * command.
+   */
+  private ReadinessProbe getReadinessProbe(@Nullable final String readinessCommand) {
+    if (readinessCommand == null) {
+      return new ReadinessProbe() {
+        @Override
+        public boolean isReady(RemoteProcess process) throws Exception {
+          return process.isRunning();
+        }
+      };
+    }
+    return new ReadinessProbe() {
+      @Override
+      public boolean isReady(RemoteProcess process) throws Exception {
+        return process.execAndReturnSucessful(readinessCommand);
+      }
+    };
+  }
+
+  /**
+   * Resolves maxUnavailable, given either as a number of processes or as a percentage such as {@code 25%} of the
+   * processes, rounded up. Defaults to one process.
+   */
+  static int getMaxUnavailable(@Nullable String maxUnavailable, int numProcesses) {
+    if (maxUnavailable == null) {
+      return 1;
+    }
+    String value = maxUnavailable.trim();
+    try {
+      if (value.endsWith("%")) {
+        double percentage = Double.parseDouble(value.substring(0, value.length() - 1));
+        if (percentage <= 0 || percentage > 100) {
+          throw new IllegalArgumentException(MAX_UNAVAILABLE + " must be between 0% and 100%: " + maxUnavailable);
+        }
+        return Math.max(1, (int) Math.ceil(numProcesses * percentage / 100));
+      }
+      int count = Integer.parseInt(value);
+      if (count < 1) {
+        throw new IllegalArgumentException(MAX_UNAVAILABLE + " must be at least 1: " + maxUnavailable);
+      }
+      return count;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(MAX_UNAVAILABLE + " must be a number or a percentage: " + maxUnavailable, e);
+    }
+  }
+
+  private int getSeconds(@Nullable Integer seconds, int defaultSeconds) {
+    return (seconds == null || seconds < 0) ? defaultSeconds : seconds;
+  }
+
+  @Nullable
+  private Integer getInteger(Map<String, String> serviceArguments, String key) {
+    String value = serviceArguments.get(key);
+    if (value == null) {
+      return null;
+    }
+    try {
+      return Integer.valueOf(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(String.format("%s must be an integer: %s", key, value), e);
     }
   }
 
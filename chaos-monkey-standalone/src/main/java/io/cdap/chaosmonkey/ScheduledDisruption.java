@@ -16,31 +16,34 @@
 
 package io.cdap.chaosmonkey;
 
-import com.google.common.util.concurrent.AbstractScheduledService;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.TimeUnit;
+import java.util.Random;
+import javax.annotation.Nullable;
 
 /**
- * Scheduled service that will periodically disrupt configured services
+ * Disruption of a configured service that runs periodically. Each iteration randomly stops, kills or restarts some
+ * nodes of the service, or leaves it alone. Iterations are run by a {@link DisruptionScheduler} when the
+ * {@link ArrivalModel} of the disruption says so. With an {@link AdaptiveController}, the probabilities and the
+ * maximum number of nodes are scaled down while the system under test misses its latency objective.
  */
-public class ScheduledDisruption extends AbstractScheduledService {
-  private static final Logger LOG = LoggerFactory.getLogger(ScheduledDisruption.class);
+public class ScheduledDisruption {
 
   private List<RemoteProcess> processes;
   private double stopProbability;
   private double killProbability;
   private double restartProbability;
-  private int executionPeriod;
+  private ArrivalModel arrivalModel;
+  private Random random;
+  private AdaptiveController controller;
   private int minNodesPerIteration;
   private int maxNodesPerIteration;
   private Kill kill = new Kill();
   private Stop stop = new Stop();
   private Restart restart = new Restart();
+  private final String service;
+  private final MetricsRegistry.Counter disruptedTicks;
+  private final MetricsRegistry.Counter skippedTicks;
 
   /**
    *
@@ -48,22 +51,28 @@ public class ScheduledDisruption extends AbstractScheduledService {
    * @param stopProbability Probability that this process will be stopped in the current interval
    * @param killProbability Probability that this process will be killed in the current interval
    * @param restartProbability Probability that this process will be restarted in the current interval
-   * @param executionPeriod The rate of execution cycles (in seconds)
+   * @param arrivalModel When iterations happen
    * @param minNodesPerIteration The minimum number of nodes that will be affected by chaos monkey each iteration
    * @param maxNodesPerIteration The maximum number of nodes that will be affected by chaos monkey each iteration
+   * @param random The source of the choices made by each iteration
+   * @param controller Optional, scales the disruption according to the latency of the system under test
    */
   public ScheduledDisruption(List<RemoteProcess> processes,
                              double stopProbability,
                              double killProbability,
                              double restartProbability,
-                             int executionPeriod,
+                             ArrivalModel arrivalModel,
                              int minNodesPerIteration,
-                             int maxNodesPerIteration) {
+                             int maxNodesPerIteration,
+                             Random random,
+                             @Nullable AdaptiveController controller) {
     this.processes = processes;
     this.stopProbability = stopProbability;
     this.killProbability = killProbability;
     this.restartProbability = restartProbability;
-    this.executionPeriod = executionPeriod;
+    this.arrivalModel = arrivalModel;
+    this.random = random;
+    this.controller = controller;
 
     this.minNodesPerIteration = Math.min(processes.size(), minNodesPerIteration);
     this.maxNodesPerIteration = Math.min(processes.size(), maxNodesPerIteration);
@@ -79,31 +88,61 @@ public class ScheduledDisruption extends AbstractScheduledService {
                                             "minNodePerIteration: " + this.minNodesPerIteration + "\n" +
                                             "maxNodePerIteration: " + this.maxNodesPerIteration);
     }
+
+    this.service = processes.isEmpty() ? "" : processes.get(0).getName();
+    MetricsRegistry metrics = MetricsRegistry.getDefault();
+    this.disruptedTicks = metrics.counter("chaosmonkey_scheduled_ticks_total", "Number of scheduled disruption ticks",
+                                          "service", service, "outcome", "disrupted");
+    this.skippedTicks = metrics.counter("chaosmonkey_scheduled_ticks_total", "Number of scheduled disruption ticks",
+                                        "service", service, "outcome", "skipped");
   }
 
-  @Override
-  protected void runOneIteration() throws Exception {
-    double random = Math.random();
-    int numNodes = ThreadLocalRandom.current().nextInt(minNodesPerIteration, maxNodesPerIteration + 1);
+  /**
+   * Returns the name of the disrupted service.
+   */
+  public String getService() {
+    return service;
+  }
 
-    if (random < stopProbability) {
-      stop.disrupt(getAffectedNodes(numNodes), null);
-    } else if (random < stopProbability + killProbability) {
-      kill.disrupt(getAffectedNodes(numNodes), null);
-    } else if (random < stopProbability + killProbability + restartProbability) {
-      restart.disrupt(getAffectedNodes(numNodes), null);
+  /**
+   * Returns the model deciding when iterations happen.
+   */
+  public ArrivalModel getArrivalModel() {
+    return arrivalModel;
+  }
+
+  /**
+   * Runs one iteration, blocking until the chosen disruption is done.
+   */
+  public void runOneIteration() throws Exception {
+    double scale = controller == null ? 1 : controller.getScale();
+    // Scaling the roll is the same as scaling each probability
+    double roll = random.nextDouble() / scale;
+    int maxNodes = Math.max(minNodesPerIteration, (int) Math.round(maxNodesPerIteration * scale));
+    int numNodes = minNodesPerIteration + random.nextInt(maxNodes - minNodesPerIteration + 1);
+
+    Disruption disruption;
+    if (roll < stopProbability) {
+      disruption = stop;
+    } else if (roll < stopProbability + killProbability) {
+      disruption = kill;
+    } else if (roll < stopProbability + killProbability + restartProbability) {
+      disruption = restart;
     } else {
+      skippedTicks.inc();
       return;
     }
+    ActiveDisruptions.Record record = ActiveDisruptions.getDefault().begin(service, disruption.getName());
+    try {
+      disruption.disrupt(getAffectedNodes(numNodes), null);
+    } finally {
+      record.end();
+    }
+    disruptedTicks.inc();
   }
 
   private List<RemoteProcess> getAffectedNodes(int numNodes) {
-    Collections.shuffle(processes);
+    Collections.shuffle(processes, random);
     return processes.subList(0, numNodes);
   }
-
-  @Override
-  protected Scheduler scheduler() {
-    return AbstractScheduledService.Scheduler.newFixedRateSchedule(0, this.executionPeriod, TimeUnit.SECONDS);
-  }
 }
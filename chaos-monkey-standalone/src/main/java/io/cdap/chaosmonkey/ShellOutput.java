@@ -16,6 +16,8 @@
 
 package io.cdap.chaosmonkey;
 
+import javax.annotation.Nullable;
+
 /**
  * A class which holds information after running a shell process.
  */
@@ -35,6 +37,12 @@ public class ShellOutput {
    */
   public final String errorOutput;
 
+  /**
+   * The time spent in each phase of running the command, or {@code null} if it was not measured.
+   */
+  @Nullable
+  public final ShellTiming timing;
+
   /**
    *
    * @param returnCode The return code of the command
@@ -42,8 +50,20 @@ public class ShellOutput {
    * @param errorOutput The standard error captured
    */
   public ShellOutput(int returnCode, String standardOutput, String errorOutput) {
+    this(returnCode, standardOutput, errorOutput, null);
+  }
+
+  /**
+   *
+   * @param returnCode The return code of the command
+   * @param standardOutput The standard output captured
+   * @param errorOutput The standard error captured
+   * @param timing The time spent in each phase of running the command
+   */
+  public ShellOutput(int returnCode, String standardOutput, String errorOutput, @Nullable ShellTiming timing) {
     this.returnCode = returnCode;
     this.standardOutput = standardOutput;
     this.errorOutput = errorOutput;
+    this.timing = timing;
   }
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time spent in each phase of a command executed over SSH, in microseconds. Phases that did not take place, such
+ * as establishing a session when a pooled one was reused, are {@link #NONE}.
+ */
+public final class ShellTiming {
+  /**
+   * The value of a phase that did not take place or could not be measured.
+   */
+  public static final long NONE = -1;
+
+  /**
+   * Time spent waiting for a free channel on the host, or for a session being established by another command.
+   */
+  public final long queueMicros;
+
+  /**
+   * Time spent resolving the address of the host.
+   */
+  public final long dnsMicros;
+
+  /**
+   * Time spent establishing the TCP connection.
+   */
+  public final long tcpConnectMicros;
+
+  /**
+   * Time spent exchanging the protocol version and keys, up to the check of the host key.
+   */
+  public final long keyExchangeMicros;
+
+  /**
+   * Time spent authenticating, including signing requests forwarded to the ssh-agent.
+   */
+  public final long authMicros;
+
+  /**
+   * Time spent opening the exec channel and starting the command.
+   */
+  public final long channelMicros;
+
+  /**
+   * Time the remote login shell spent sourcing the profile, as measured by the remote clock.
+   */
+  public final long profileMicros;
+
+  /**
+   * Time spent running the command itself, including {@code sudo} if the command uses it.
+   */
+  public final long commandMicros;
+
+  /**
+   * Time from the call to execute the command until its output was received.
+   */
+  public final long totalMicros;
+
+  ShellTiming(long queueMicros, long dnsMicros, long tcpConnectMicros, long keyExchangeMicros, long authMicros,
+              long channelMicros, long profileMicros, long commandMicros, long totalMicros) {
+    this.queueMicros = queueMicros;
+    this.dnsMicros = dnsMicros;
+    this.tcpConnectMicros = tcpConnectMicros;
+    this.keyExchangeMicros = keyExchangeMicros;
+    this.authMicros = authMicros;
+    this.channelMicros = channelMicros;
+    this.profileMicros = profileMicros;
+    this.commandMicros = commandMicros;
+    this.totalMicros = totalMicros;
+  }
+
+  /**
+   * Returns the phases that took place, in the order they happened, keyed by name.
+   */
+  public Map<String, Long> getPhases() {
+    Map<String, Long> phases = new LinkedHashMap<>();
+    addPhase(phases, "queue", queueMicros);
+    addPhase(phases, "dns", dnsMicros);
+    addPhase(phases, "tcp_connect", tcpConnectMicros);
+    addPhase(phases, "key_exchange", keyExchangeMicros);
+    addPhase(phases, "auth", authMicros);
+    addPhase(phases, "channel", channelMicros);
+    addPhase(phases, "profile", profileMicros);
+    addPhase(phases, "command", commandMicros);
+    addPhase(phases, "total", totalMicros);
+    return Collections.unmodifiableMap(phases);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    for (Map.Entry<String, Long> phase : getPhases().entrySet()) {
+      if (builder.length() > 0) {
+        builder.append(' ');
+      }
+      builder.append(phase.getKey()).append('=').append(String.format("%.1fms", phase.getValue() / 1000.0));
+    }
+    return builder.toString();
+  }
+
+  private static void addPhase(Map<String, Long> phases, String name, long micros) {
+    if (micros != NONE) {
+      phases.put(name, micros);
+    }
+  }
+
+  /**
+   * Collects the points in time at which a command moves from one phase to the next. Marks are made by the thread
+   * that starts the command, which must publish them safely before {@link #build(long)} is called from another
+   * thread. When a session has to be re-established, the marks of the last attempt are kept.
+   */
+  static final class Recorder {
+    private final long startNanos;
+    private long resolvingNanos = NONE;
+    private long resolvedNanos = NONE;
+    private long tcpConnectedNanos = NONE;
+    private long hostKeyCheckedNanos = NONE;
+    private long authenticatedNanos = NONE;
+    private long sessionAcquiredNanos = NONE;
+    private long channelOpenedNanos = NONE;
+    private long profileMicros = NONE;
+
+    Recorder() {
+      this.startNanos = System.nanoTime();
+    }
+
+    void resolving() {
+      resolvingNanos = System.nanoTime();
+      resolvedNanos = NONE;
+      tcpConnectedNanos = NONE;
+      hostKeyCheckedNanos = NONE;
+      authenticatedNanos = NONE;
+    }
+
+    void resolved() {
+      resolvedNanos = System.nanoTime();
+    }
+
+    void tcpConnected() {
+      tcpConnectedNanos = System.nanoTime();
+    }
+
+    void hostKeyChecked() {
+      hostKeyCheckedNanos = System.nanoTime();
+    }
+
+    void authenticated() {
+      authenticatedNanos = System.nanoTime();
+    }
+
+    void sessionAcquired() {
+      sessionAcquiredNanos = System.nanoTime();
+    }
+
+    void channelOpened() {
+      channelOpenedNanos = System.nanoTime();
+    }
+
+    void profiled(long micros) {
+      profileMicros = micros;
+    }
+
+    ShellTiming build(long endNanos) {
+      boolean connected = resolvingNanos != NONE && resolvedNanos != NONE && tcpConnectedNanos != NONE
+        && hostKeyCheckedNanos != NONE && authenticatedNanos != NONE;
+      long connectNanos = connected ? authenticatedNanos - resolvingNanos : 0;
+      long command = micros(endNanos - channelOpenedNanos) - Math.max(0, profileMicros);
+      return new ShellTiming(micros(sessionAcquiredNanos - startNanos - connectNanos),
+                             connected ? micros(resolvedNanos - resolvingNanos) : NONE,
+                             connected ? micros(tcpConnectedNanos - resolvedNanos) : NONE,
+                             connected ? micros(hostKeyCheckedNanos - tcpConnectedNanos) : NONE,
+                             connected ? micros(authenticatedNanos - hostKeyCheckedNanos) : NONE,
+                             micros(channelOpenedNanos - sessionAcquiredNanos),
+                             profileMicros,
+                             Math.max(0, command),
+                             micros(endNanos - startNanos));
+    }
+
+    private static long micros(long nanos) {
+      return Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+  }
+}
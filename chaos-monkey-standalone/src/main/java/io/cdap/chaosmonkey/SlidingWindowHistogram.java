@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+/**
+ * A {@link LatencyHistogram} of the values recorded over a recent period of time. The window is divided into slots
+ * that are discarded as a whole once they are older than the window, so the window moves forward one slot at a time.
+ */
+public class SlidingWindowHistogram {
+  private final long slotMillis;
+  private final LatencyHistogram[] slots;
+  private final long[] slotEpochs;
+
+  /**
+   * @param windowMillis The length of the window, in milliseconds
+   * @param numSlots The number of slots the window is divided into
+   */
+  public SlidingWindowHistogram(long windowMillis, int numSlots) {
+    if (numSlots < 1 || windowMillis < numSlots) {
+      throw new IllegalArgumentException(String.format("Invalid window of %d ms with %d slots", windowMillis,
+                                                       numSlots));
+    }
+    this.slotMillis = windowMillis / numSlots;
+    this.slots = new LatencyHistogram[numSlots];
+    this.slotEpochs = new long[numSlots];
+    clear();
+  }
+
+  /**
+   * Records a value at the given time.
+   *
+   * @param value The value to record
+   * @param nowMillis The current time, in milliseconds
+   */
+  public synchronized void record(long value, long nowMillis) {
+    long epoch = nowMillis / slotMillis;
+    int index = (int) (epoch % slots.length);
+    if (slotEpochs[index] != epoch) {
+      slots[index] = new LatencyHistogram();
+      slotEpochs[index] = epoch;
+    }
+    slots[index].record(value);
+  }
+
+  /**
+   * Returns the values recorded within the window ending at the given time.
+   *
+   * @param nowMillis The current time, in milliseconds
+   */
+  public synchronized LatencyHistogram.Snapshot snapshot(long nowMillis) {
+    long epoch = nowMillis / slotMillis;
+    LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+    for (int i = 0; i < slots.length; i++) {
+      if (slotEpochs[i] > epoch - slots.length) {
+        snapshot = snapshot.merge(slots[i].snapshot());
+      }
+    }
+    return snapshot;
+  }
+
+  /**
+   * Discards all recorded values.
+   */
+  public synchronized void clear() {
+    for (int i = 0; i < slots.length; i++) {
+      slots[i] = new LatencyHistogram();
+      slotEpochs[i] = Long.MIN_VALUE;
+    }
+  }
+}
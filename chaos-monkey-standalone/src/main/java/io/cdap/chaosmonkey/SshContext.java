@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import com.google.common.collect.ImmutableList;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.jcraft.jsch.agentproxy.AgentProxyException;
+import com.jcraft.jsch.agentproxy.Connector;
+import com.jcraft.jsch.agentproxy.ConnectorFactory;
+import com.jcraft.jsch.agentproxy.RemoteIdentityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
+
+/**
+ * The SSH client state shared by every {@link SshShell} of a user: a single {@link JSch} with the identities parsed
+ * once, one connection to the ssh-agent, and the {@link SshSessionPool}. Shells are lightweight handles to a host,
+ * created once per host and exec mode.
+ */
+public class SshContext {
+  private static final Logger LOG = LoggerFactory.getLogger(SshContext.class);
+  private static final ImmutableList<String> RELATIVE_KEY_PATHS = ImmutableList.of(".ssh/id_dsa",
+                                                                                   ".ssh/id_ecdsa",
+                                                                                   ".ssh/id_rsa");
+
+  private final JSch jsch;
+  private final String username;
+  private final SshSessionPool sessionPool;
+  private final ConcurrentMap<String, SshShell> shells;
+
+  /**
+   * Constructs a new {@code SshContext}.
+   *
+   * @param username The username to connect with
+   * @param privateKey The location of the private key file, or {@code null} to look in the default key locations,
+   *                   where keys should be unencrypted
+   * @param passphrase The passphrase encrypting the private key
+   * @param sessionPool The {@link SshSessionPool} that holds the sessions used to execute commands
+   * @throws JSchException if the private key cannot be read
+   * @throws IllegalStateException if no private key is given and none is found in the default key locations
+   */
+  public SshContext(String username, @Nullable String privateKey, @Nullable String passphrase,
+                    SshSessionPool sessionPool) throws JSchException {
+    this(username, privateKey, passphrase, sessionPool, privateKey == null);
+  }
+
+  SshContext(String username, @Nullable String privateKey, @Nullable String passphrase,
+             SshSessionPool sessionPool, boolean useDefaultKeys) throws JSchException {
+    this.username = username;
+    this.sessionPool = sessionPool;
+    this.shells = new ConcurrentHashMap<>();
+    this.jsch = new JSch();
+    this.jsch.setConfig("StrictHostKeyChecking", "no");
+
+    try {
+      Connector connector = ConnectorFactory.getDefault().createConnector();
+      if (connector != null) {
+        jsch.setIdentityRepository(new RemoteIdentityRepository(connector));
+        LOG.debug("Attaching to ssh-agent");
+      }
+    } catch (AgentProxyException e) {
+      LOG.error("Unable to connect to ssh-agent", e);
+    }
+
+    if (privateKey != null) {
+      if (passphrase != null) {
+        jsch.addIdentity(privateKey, passphrase);
+      } else {
+        jsch.addIdentity(privateKey);
+      }
+    }
+
+    if (useDefaultKeys) {
+      addDefaultIdentity();
+    }
+  }
+
+  /**
+   * Returns the shell executing commands on the given host in the given mode, creating it if needed.
+   *
+   * @param address The address of the host
+   * @param execMode How commands are run on the host
+   */
+  public SshShell getShell(String address, ExecMode execMode) {
+    String key = address + "/" + execMode;
+    SshShell shell = shells.get(key);
+    if (shell == null) {
+      SshShell newShell = new SshShell(this, address, execMode);
+      shell = shells.putIfAbsent(key, newShell);
+      if (shell == null) {
+        shell = newShell;
+      }
+    }
+    return shell;
+  }
+
+  /**
+   * Establishes a session to the given host if there is no live one, without running a command.
+   *
+   * @param address The address of the host
+   * @throws JSchException if the session could not be established
+   */
+  public void connect(String address) throws JSchException {
+    Session session = sessionPool.acquire(jsch, username, address);
+    sessionPool.release(username, address, session);
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  JSch getJSch() {
+    return jsch;
+  }
+
+  SshSessionPool getSessionPool() {
+    return sessionPool;
+  }
+
+  private void addDefaultIdentity() throws JSchException {
+    for (String relativeKeyPath : RELATIVE_KEY_PATHS) {
+      String absoluteKeyPath = System.getProperty("user.home") + "/" + relativeKeyPath;
+      if (new File(absoluteKeyPath).exists()) {
+        jsch.addIdentity(absoluteKeyPath);
+        return;
+      }
+    }
+    throw new IllegalStateException("No keys found, please manually add your key");
+  }
+}
@@ -0,0 +1,460 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jcraft.jsch.HostKey;
+import com.jcraft.jsch.HostKeyRepository;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.jcraft.jsch.SocketFactory;
+import com.jcraft.jsch.UserInfo;
+import io.cdap.chaosmonkey.common.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps one live SSH {@link Session} per user and host so that consecutive commands do not pay for a new TCP
+ * connection, key exchange and authentication each time. Sessions are kept alive with SSH keep-alive messages,
+ * disconnected after being idle for too long, and transparently re-established when they are found to be dead.
+ *
+ * Concurrent commands to the same host are multiplexed as separate channels over the shared session. The number
+ * of channels open at once is bounded by the sshd {@code MaxSessions} setting; the configured limit is lowered
+ * whenever the server refuses to open a channel, so the pool settles on the value the server actually enforces.
+ *
+ * Admission is controlled per host: callers queue in arrival order for a channel, and only one of them establishes
+ * the session while the others wait for it. The number of sessions being established at once across all hosts is
+ * also bounded, so that a sweep over a large cluster does not start thousands of handshakes at once. Without this,
+ * sshd's {@code MaxStartups} limit can refuse connections, and those failures look like real outages.
+ */
+public class SshSessionPool {
+  private static final Logger LOG = LoggerFactory.getLogger(SshSessionPool.class);
+
+  private final ConcurrentMap<String, PooledSession> sessions;
+  private final ScheduledExecutorService evictor;
+  private final int keepAliveMillis;
+  private final int connectTimeoutMillis;
+  private final long idleTimeoutMillis;
+  private final int maxChannels;
+  private final long queueTimeoutMillis;
+  private final Semaphore connectSlots;
+  private final MetricsRegistry.Timer connectSlotWait;
+
+  /**
+   * Constructs a new {@code SshSessionPool}.
+   *
+   * @param keepAliveSeconds The interval between keep-alive messages sent on idle sessions
+   * @param idleTimeoutSeconds The time after which a session that is not in use is disconnected
+   * @param connectTimeoutSeconds The time to wait for a session to be established
+   * @param maxChannels The maximum number of channels open at once on a session, this should match the
+   *                    {@code MaxSessions} setting of the remote sshd
+   */
+  public SshSessionPool(int keepAliveSeconds, int idleTimeoutSeconds, int connectTimeoutSeconds, int maxChannels) {
+    this(keepAliveSeconds, idleTimeoutSeconds, connectTimeoutSeconds, maxChannels,
+         Constants.Ssh.DEFAULT_MAX_CONCURRENT_CONNECTS, Constants.Ssh.DEFAULT_QUEUE_TIMEOUT_SECONDS);
+  }
+
+  /**
+   * Constructs a new {@code SshSessionPool}.
+   *
+   * @param keepAliveSeconds The interval between keep-alive messages sent on idle sessions
+   * @param idleTimeoutSeconds The time after which a session that is not in use is disconnected
+   * @param connectTimeoutSeconds The time to wait for a session to be established
+   * @param maxChannels The maximum number of channels open at once on a session, this should match the
+   *                    {@code MaxSessions} setting of the remote sshd
+   * @param maxConcurrentConnects The maximum number of sessions being established at once across all hosts
+   * @param queueTimeoutSeconds The time after which a caller waiting for a channel or for a connect slot gives up,
+   *                            or zero to wait indefinitely
+   */
+  public SshSessionPool(int keepAliveSeconds, int idleTimeoutSeconds, int connectTimeoutSeconds, int maxChannels,
+                        int maxConcurrentConnects, int queueTimeoutSeconds) {
+    if (maxChannels < 1) {
+      throw new IllegalArgumentException("maxChannels must be at least 1: " + maxChannels);
+    }
+    if (maxConcurrentConnects < 1) {
+      throw new IllegalArgumentException("maxConcurrentConnects must be at least 1: " + maxConcurrentConnects);
+    }
+    if (queueTimeoutSeconds < 0) {
+      throw new IllegalArgumentException("queueTimeoutSeconds must not be negative: " + queueTimeoutSeconds);
+    }
+    this.maxChannels = maxChannels;
+    this.queueTimeoutMillis = TimeUnit.SECONDS.toMillis(queueTimeoutSeconds);
+    this.connectSlots = new Semaphore(maxConcurrentConnects, true);
+    this.connectSlotWait = MetricsRegistry.getDefault().timer("chaosmonkey_ssh_queue_wait_seconds",
+                                                              "Time spent waiting for admission by the SSH layer",
+                                                              "stage", "connect");
+    this.sessions = new ConcurrentHashMap<>();
+    this.keepAliveMillis = (int) TimeUnit.SECONDS.toMillis(keepAliveSeconds);
+    this.connectTimeoutMillis = (int) TimeUnit.SECONDS.toMillis(connectTimeoutSeconds);
+    this.idleTimeoutMillis = TimeUnit.SECONDS.toMillis(idleTimeoutSeconds);
+    this.evictor = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ssh-session-evictor").build());
+
+    long evictionPeriod = Math.max(1, idleTimeoutSeconds / 2);
+    this.evictor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        evictIdleSessions();
+      }
+    }, evictionPeriod, evictionPeriod, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Returns a connected session to the given host, establishing a new one if there is no live session. The caller
+   * is granted the right to open one channel on the session, and blocks until a channel is available.
+   * Every call must be paired with exactly one call to {@link #release(String, String, Session)},
+   * {@link #invalidate(String, String, Session)} or {@link #channelRefused(String, String, Session)}.
+   *
+   * @param jsch The {@link JSch} used to create a new session if needed
+   * @param username The username to connect with
+   * @param address The address of the host
+   * @return A connected {@link Session}
+   * @throws JSchException if a new session could not be established
+   */
+  public Session acquire(JSch jsch, String username, String address) throws JSchException {
+    return acquire(jsch, username, address, new ShellTiming.Recorder());
+  }
+
+  /**
+   * Same as {@link #acquire(JSch, String, String)}, but if a new session is established the time spent in each
+   * phase of establishing it is marked on the given recorder.
+   */
+  Session acquire(JSch jsch, String username, String address,
+                  ShellTiming.Recorder recorder) throws JSchException {
+    PooledSession pooledSession = getPooledSession(username, address);
+    long startNanos = System.nanoTime();
+    if (!admit(pooledSession.channels, "a channel to " + username + "@" + address)) {
+      pooledSession.queueTimeouts.inc();
+      throw new JSchException(String.format("Timed out after %d ms waiting for a channel to %s@%s",
+                                            queueTimeoutMillis, username, address));
+    }
+    pooledSession.channelWait.recordSince(startNanos);
+    try {
+      return pooledSession.acquire(jsch, recorder);
+    } catch (JSchException | RuntimeException e) {
+      pooledSession.channels.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Releases a session previously returned by {@link #acquire(JSch, String, String)}.
+   */
+  public void release(String username, String address, Session session) {
+    PooledSession pooledSession = getPooledSession(username, address);
+    pooledSession.release(session);
+    pooledSession.channels.release();
+  }
+
+  /**
+   * Disconnects the given session and removes it from the pool so that the next acquire reconnects.
+   */
+  public void invalidate(String username, String address, Session session) {
+    PooledSession pooledSession = getPooledSession(username, address);
+    pooledSession.invalidate(session);
+    pooledSession.channels.release();
+  }
+
+  /**
+   * Releases a session after the remote host refused to open a channel on it, which happens when more channels
+   * are open than the {@code MaxSessions} setting of the remote sshd allows. The channel limit for the host is
+   * lowered by one so that later callers wait instead of being refused.
+   */
+  public void channelRefused(String username, String address, Session session) {
+    PooledSession pooledSession = getPooledSession(username, address);
+    pooledSession.release(session);
+    if (!pooledSession.channels.shrink()) {
+      pooledSession.channels.release();
+    }
+  }
+
+  /**
+   * Disconnects all sessions and stops the eviction of idle sessions.
+   */
+  public void shutdown() {
+    evictor.shutdownNow();
+    for (PooledSession pooledSession : sessions.values()) {
+      pooledSession.close();
+    }
+    sessions.clear();
+  }
+
+  private PooledSession getPooledSession(String username, String address) {
+    String key = username + "@" + address;
+    PooledSession pooledSession = sessions.get(key);
+    if (pooledSession == null) {
+      PooledSession newPooledSession = new PooledSession(username, address);
+      pooledSession = sessions.putIfAbsent(key, newPooledSession);
+      if (pooledSession == null) {
+        pooledSession = newPooledSession;
+      }
+    }
+    return pooledSession;
+  }
+
+  /**
+   * Takes a permit from the given semaphore, waiting at most for the queue timeout.
+   *
+   * @return {@code true} if a permit was taken, {@code false} if the queue timeout elapsed
+   * @throws JSchException if interrupted while waiting
+   */
+  private boolean admit(Semaphore semaphore, String description) throws JSchException {
+    try {
+      if (queueTimeoutMillis == 0) {
+        semaphore.acquire();
+        return true;
+      }
+      return semaphore.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new JSchException("Interrupted while waiting for " + description, e);
+    }
+  }
+
+  private void evictIdleSessions() {
+    long now = System.currentTimeMillis();
+    for (PooledSession pooledSession : sessions.values()) {
+      pooledSession.evictIfIdle(now);
+    }
+  }
+
+  /**
+   * The live session to a single host, shared by all callers talking to that host.
+   */
+  private final class PooledSession {
+    private final String username;
+    private final String address;
+    private final ChannelLimit channels;
+    private final MetricsRegistry.Timer channelWait;
+    private final MetricsRegistry.Counter queueTimeouts;
+    private Session session;
+    private int users;
+    private long lastUsed;
+
+    PooledSession(String username, String address) {
+      this.username = username;
+      this.address = address;
+      this.channels = new ChannelLimit(username, address, maxChannels);
+      MetricsRegistry metrics = MetricsRegistry.getDefault();
+      this.channelWait = metrics.timer("chaosmonkey_ssh_queue_wait_seconds",
+                                       "Time spent waiting for admission by the SSH layer",
+                                       "host", address, "stage", "channel");
+      this.queueTimeouts = metrics.counter("chaosmonkey_ssh_queue_timeouts_total",
+                                           "Number of SSH commands that gave up waiting for admission",
+                                           "host", address);
+    }
+
+    synchronized Session acquire(JSch jsch, ShellTiming.Recorder recorder) throws JSchException {
+      if (session == null || !session.isConnected()) {
+        if (session != null) {
+          LOG.debug("SSH session to {}@{} was lost, reconnecting", username, address);
+          session.disconnect();
+        }
+        session = null;
+        users = 0;
+        Session newSession = jsch.getSession(username, address);
+        newSession.setServerAliveInterval(keepAliveMillis);
+        newSession.setServerAliveCountMax(3);
+        newSession.setSocketFactory(new TimingSocketFactory(recorder, connectTimeoutMillis));
+        newSession.setHostKeyRepository(new TimingHostKeyRepository(recorder, jsch.getHostKeyRepository()));
+        long startNanos = System.nanoTime();
+        if (!admit(connectSlots, "a slot to connect to " + username + "@" + address)) {
+          queueTimeouts.inc();
+          throw new JSchException(String.format("Timed out after %d ms waiting for a slot to connect to %s@%s",
+                                                queueTimeoutMillis, username, address));
+        }
+        connectSlotWait.recordSince(startNanos);
+        try {
+          newSession.connect(connectTimeoutMillis);
+        } finally {
+          connectSlots.release();
+        }
+        recorder.authenticated();
+        LOG.debug("Opened SSH session to {}@{}", username, address);
+        session = newSession;
+      }
+      users++;
+      lastUsed = System.currentTimeMillis();
+      return session;
+    }
+
+    synchronized void release(Session released) {
+      if (released == session) {
+        users = Math.max(0, users - 1);
+        lastUsed = System.currentTimeMillis();
+      }
+    }
+
+    synchronized void invalidate(Session invalid) {
+      invalid.disconnect();
+      if (invalid == session) {
+        session = null;
+        users = 0;
+      }
+    }
+
+    synchronized void evictIfIdle(long now) {
+      if (session != null && users == 0 && now - lastUsed >= idleTimeoutMillis) {
+        LOG.debug("Closing idle SSH session to {}@{}", username, address);
+        session.disconnect();
+        session = null;
+      }
+    }
+
+    synchronized void close() {
+      if (session != null) {
+        session.disconnect();
+        session = null;
+      }
+    }
+  }
+
+  /**
+   * Bounds the number of channels open at once on a session. The limit can only shrink, to adapt to the limit
+   * enforced by the remote host.
+   */
+  private static final class ChannelLimit extends Semaphore {
+    private final String username;
+    private final String address;
+    private int limit;
+
+    ChannelLimit(String username, String address, int limit) {
+      super(limit, true);
+      this.username = username;
+      this.address = address;
+      this.limit = limit;
+    }
+
+    /**
+     * Lowers the limit by one by dropping a permit held by the caller.
+     *
+     * @return {@code true} if the limit was lowered, {@code false} if the limit is already one
+     */
+    synchronized boolean shrink() {
+      if (limit <= 1) {
+        return false;
+      }
+      limit--;
+      LOG.info("Remote host {}@{} refused a channel, limiting it to {} concurrent channels", username, address, limit);
+      return true;
+    }
+  }
+
+  /**
+   * {@link SocketFactory} that marks when the address of the host is resolved and when the TCP connection is
+   * established. JSch does not apply the connect timeout to sockets created by a factory, so it is applied here.
+   */
+  private static final class TimingSocketFactory implements SocketFactory {
+    private final ShellTiming.Recorder recorder;
+    private final int connectTimeoutMillis;
+
+    TimingSocketFactory(ShellTiming.Recorder recorder, int connectTimeoutMillis) {
+      this.recorder = recorder;
+      this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+      recorder.resolving();
+      InetAddress address = InetAddress.getByName(host);
+      recorder.resolved();
+      Socket socket = new Socket();
+      try {
+        socket.connect(new InetSocketAddress(address, port), connectTimeoutMillis);
+      } catch (IOException e) {
+        socket.close();
+        throw e;
+      }
+      recorder.tcpConnected();
+      return socket;
+    }
+
+    @Override
+    public InputStream getInputStream(Socket socket) throws IOException {
+      return socket.getInputStream();
+    }
+
+    @Override
+    public OutputStream getOutputStream(Socket socket) throws IOException {
+      return socket.getOutputStream();
+    }
+  }
+
+  /**
+   * {@link HostKeyRepository} that marks the end of the key exchange, which is when JSch checks the host key, and
+   * otherwise delegates to the repository of the {@link JSch} instance.
+   */
+  private static final class TimingHostKeyRepository implements HostKeyRepository {
+    private final ShellTiming.Recorder recorder;
+    private final HostKeyRepository delegate;
+
+    TimingHostKeyRepository(ShellTiming.Recorder recorder, HostKeyRepository delegate) {
+      this.recorder = recorder;
+      this.delegate = delegate;
+    }
+
+    @Override
+    public int check(String host, byte[] key) {
+      recorder.hostKeyChecked();
+      return delegate.check(host, key);
+    }
+
+    @Override
+    public void add(HostKey hostkey, UserInfo ui) {
+      delegate.add(hostkey, ui);
+    }
+
+    @Override
+    public void remove(String host, String type) {
+      delegate.remove(host, type);
+    }
+
+    @Override
+    public void remove(String host, String type, byte[] key) {
+      delegate.remove(host, type, key);
+    }
+
+    @Override
+    public String getKnownHostsRepositoryID() {
+      return delegate.getKnownHostsRepositoryID();
+    }
+
+    @Override
+    public HostKey[] getHostKey() {
+      return delegate.getHostKey();
+    }
+
+    @Override
+    public HostKey[] getHostKey(String host, String type) {
+      return delegate.getHostKey(host, type);
+    }
+  }
+}
@@ -16,22 +16,29 @@
 
 package io.cdap.chaosmonkey;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
-import com.jcraft.jsch.agentproxy.AgentProxyException;
-import com.jcraft.jsch.agentproxy.Connector;
-import com.jcraft.jsch.agentproxy.ConnectorFactory;
-import com.jcraft.jsch.agentproxy.RemoteIdentityRepository;
+import io.cdap.chaosmonkey.common.Constants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nullable;
 
 /**
@@ -39,13 +46,37 @@ import javax.annotation.Nullable;
  */
 public class SshShell {
   private static final Logger LOG = LoggerFactory.getLogger(SshShell.class);
-  private static final ImmutableList<String> RELATIVE_KEY_PATHS = ImmutableList.of(".ssh/id_dsa",
-                                                                                   ".ssh/id_ecdsa",
-                                                                                   ".ssh/id_rsa");
+  // Message of the JSchException thrown when the remote host rejects a channel open request
+  private static final String CHANNEL_REFUSED = "channel is not opened.";
+  private static final int MAX_CHANNEL_ATTEMPTS = 3;
+  private static final String COMMAND_METRIC = "chaosmonkey_ssh_command_seconds";
+  private static final String COMMAND_METRIC_HELP = "Latency of SSH commands by phase, across all hosts";
+  private static final List<String> PHASES = ImmutableList.of("queue", "dns", "tcp_connect", "key_exchange", "auth",
+                                                              "channel", "profile", "command", "total");
+  // Prefix of the lines written to the standard error to time the login profile on the remote host
+  private static final String TIMING_MARKER = "chaosmonkey-timing";
+  // Marks the time before and after bash sources the login profile, on the remote clock
+  private static final String PROFILE_START = "echo \"" + TIMING_MARKER + " start $(date +%s%N)\" >&2; ";
+  private static final String PROFILE_END = "echo \"" + TIMING_MARKER + " profiled $(date +%s%N)\" >&2; ";
+  // Separates the output of the login profile from the captured environment
+  private static final String ENVIRONMENT_MARKER = "chaosmonkey-environment";
+  // Variables that describe the shell or the SSH connection rather than the login environment
+  private static final Set<String> SESSION_VARIABLES = ImmutableSet.of("_", "PWD", "OLDPWD", "SHLVL", "SHELLOPTS",
+                                                                       "BASHOPTS", "SSH_CLIENT", "SSH_CONNECTION",
+                                                                       "SSH_TTY");
+
+  private static SshSessionPool defaultSessionPool;
 
   private final JSch jsch;
   private final String username;
   private final String address;
+  private final SshSessionPool sessionPool;
+  private final ExecMode execMode;
+  private final Map<String, MetricsRegistry.Timer> phaseTimers;
+  private final MetricsRegistry.Counter commands;
+  private final MetricsRegistry.Counter failures;
+  // The exports of a login shell, captured once per session in CACHED_LOGIN mode
+  private volatile String loginEnvironment;
 
   /**
    * Constructs a new {@code SshShell}.
@@ -54,33 +85,44 @@ public class SshShell {
    * @param address The address used to connect to the host
    * @param privateKey The location of the private key file
    * @param passphrase The passphrase encrypting the private key
+   * @param sessionPool The {@link SshSessionPool} that holds the sessions used to execute commands
    * @throws JSchException
    */
-  public SshShell(String username, String address,
-                  String privateKey, String passphrase) throws JSchException {
-    this.username = username;
-    this.address = address;
-
-    this.jsch = new JSch();
-    this.jsch.setConfig("StrictHostKeyChecking", "no");
+  public SshShell(String username, String address, @Nullable String privateKey, @Nullable String passphrase,
+                  SshSessionPool sessionPool) throws JSchException {
+    this(username, address, privateKey, passphrase, sessionPool, ExecMode.LOGIN);
+  }
 
-    try {
-      Connector connector = ConnectorFactory.getDefault().createConnector();
-      if (connector != null) {
-        jsch.setIdentityRepository(new RemoteIdentityRepository(connector));
-        LOG.debug("Attaching to ssh-agent");
-      }
-    } catch (AgentProxyException e) {
-      LOG.error("Unable to connect to ssh-agent", e);
-    }
+  /**
+   * Constructs a new {@code SshShell} with its own {@link SshContext}. Shells to many hosts should rather be
+   * obtained from a shared {@link SshContext}, which parses the keys only once.
+   *
+   * @param username The username to connect with
+   * @param address The address used to connect to the host
+   * @param privateKey The location of the private key file
+   * @param passphrase The passphrase encrypting the private key
+   * @param sessionPool The {@link SshSessionPool} that holds the sessions used to execute commands
+   * @param execMode How commands are run on the remote host
+   * @throws JSchException
+   */
+  public SshShell(String username, String address, @Nullable String privateKey, @Nullable String passphrase,
+                  SshSessionPool sessionPool, ExecMode execMode) throws JSchException {
+    this(new SshContext(username, privateKey, passphrase, sessionPool, false), address, execMode);
+  }
 
-    if (privateKey != null) {
-      if (passphrase != null) {
-        jsch.addIdentity(privateKey, passphrase);
-      } else {
-        jsch.addIdentity(privateKey);
-      }
-    }
+  /**
+   * Constructs a new {@code SshShell} that shares sessions with other {@code SshShell}s created without a
+   * {@link SshSessionPool}.
+   *
+   * @param username The username to connect with
+   * @param address The address used to connect to the host
+   * @param privateKey The location of the private key file
+   * @param passphrase The passphrase encrypting the private key
+   * @throws JSchException
+   */
+  public SshShell(String username, String address,
+                  String privateKey, String passphrase) throws JSchException {
+    this(username, address, privateKey, passphrase, getDefaultSessionPool());
   }
 
   /**
@@ -103,21 +145,55 @@ public class SshShell {
    * @throws JSchException
    */
   public SshShell(String username, String address) throws JSchException {
-    this(username, address, null);
-
-    boolean noIdentity = true;
-    for (String relativeKeyPath : RELATIVE_KEY_PATHS) {
-      String absoluteKeyPath = System.getProperty("user.home") + "/" + relativeKeyPath;
-      if (new File(absoluteKeyPath).exists()) {
-        jsch.addIdentity(absoluteKeyPath);
-        noIdentity = false;
-        break;
-      }
-    }
+    this(username, address, getDefaultSessionPool());
+  }
 
-    if (noIdentity) {
-      throw new IllegalStateException("No keys found, please manually add your key");
+  /**
+   * Constructs a new {@code SshShell} by looking in the default key locations; keys should be unencrypted.
+   *
+   * @param username The username to connect with
+   * @param address The IP address of the host
+   * @param sessionPool The {@link SshSessionPool} that holds the sessions used to execute commands
+   * @throws JSchException
+   */
+  public SshShell(String username, String address, SshSessionPool sessionPool) throws JSchException {
+    this(username, address, sessionPool, ExecMode.LOGIN);
+  }
+
+  /**
+   * Constructs a new {@code SshShell} by looking in the default key locations; keys should be unencrypted.
+   *
+   * @param username The username to connect with
+   * @param address The IP address of the host
+   * @param sessionPool The {@link SshSessionPool} that holds the sessions used to execute commands
+   * @param execMode How commands are run on the remote host
+   * @throws JSchException
+   */
+  public SshShell(String username, String address, SshSessionPool sessionPool,
+                  ExecMode execMode) throws JSchException {
+    this(new SshContext(username, null, null, sessionPool), address, execMode);
+  }
+
+  /**
+   * Constructs a handle to a host sharing the client state of the given {@link SshContext}.
+   */
+  SshShell(SshContext context, String address, ExecMode execMode) {
+    this.jsch = context.getJSch();
+    this.username = context.getUsername();
+    this.address = address;
+    this.sessionPool = context.getSessionPool();
+    this.execMode = execMode;
+
+    // Latency is aggregated across hosts to keep the number of histograms bounded, per host data are only counted
+    MetricsRegistry metrics = MetricsRegistry.getDefault();
+    this.phaseTimers = new HashMap<>();
+    for (String phase : PHASES) {
+      phaseTimers.put(phase, metrics.timer(COMMAND_METRIC, COMMAND_METRIC_HELP, "phase", phase));
     }
+    this.commands = metrics.counter("chaosmonkey_ssh_commands_total",
+                                    "Number of SSH commands run to completion", "host", address);
+    this.failures = metrics.counter("chaosmonkey_ssh_command_failures_total",
+                                    "Number of SSH commands that could not be run to completion", "host", address);
   }
 
   /**
@@ -129,38 +205,193 @@ public class SshShell {
    * @throws JSchException
    */
   public ShellOutput exec(String command, @Nullable InputStream input) throws JSchException {
-    Session session = jsch.getSession(this.username, this.getAddress());
-    command = String.format("bash -lc '%s'", command);
-    try {
-      session.connect();
-      ChannelExec channel = (ChannelExec) session.openChannel("exec");
-
-      try (ByteArrayOutputStream output = new ByteArrayOutputStream();
-          ByteArrayOutputStream error = new ByteArrayOutputStream()) {
-        channel.setCommand(command);
-        channel.setInputStream(input);
-        channel.setOutputStream(output);
-        channel.setErrStream(error);
+    return await(execAsync(command, input), command);
+  }
+
+  /**
+   * Starts executing a command on a remote host. This method only blocks until the command is started, the
+   * returned future completes as soon as the remote host closes the channel. Cancelling the future closes the
+   * channel, which stops waiting for the command but does not necessarily terminate the remote process.
+   * The output carries the time spent in each phase of the command, which is also logged at debug level.
+   *
+   * @param command The command to be executed
+   * @param input The input to accompany the command
+   * @return A {@link ListenableFuture} of the output of the command
+   * @throws JSchException if the command could not be started
+   */
+  public ListenableFuture<ShellOutput> execAsync(String command, @Nullable InputStream input) throws JSchException {
+    if (execMode != ExecMode.CACHED_LOGIN) {
+      return execAsync(command, input, execMode, null);
+    }
+    String environment = loginEnvironment;
+    if (environment == null) {
+      try {
+        environment = captureLoginEnvironment();
+      } catch (JSchException e) {
+        LOG.warn("Unable to capture the login environment of {}@{}, running '{}' in a login shell",
+                 username, address, command, e);
+        return execAsync(command, input, ExecMode.LOGIN, null);
+      }
+      loginEnvironment = environment;
+    }
+    return execAsync(command, input, ExecMode.CACHED_LOGIN, environment);
+  }
+
+  private ListenableFuture<ShellOutput> execAsync(String command, @Nullable InputStream input, ExecMode mode,
+                                                  @Nullable String environment) throws JSchException {
+    ShellTiming.Recorder recorder = new ShellTiming.Recorder();
+    String remoteCommand = wrapCommand(mode, command, environment);
+    int attempt = 0;
+    while (true) {
+      attempt++;
+      Session session;
+      try {
+        session = sessionPool.acquire(jsch, username, address, recorder);
+      } catch (JSchException | RuntimeException e) {
+        failures.inc();
+        throw e;
+      }
+      recorder.sessionAcquired();
+      ChannelExec channel;
+      try {
+        channel = (ChannelExec) session.openChannel("exec");
+      } catch (JSchException | RuntimeException e) {
+        releaseAfterChannelFailure(session);
+        failures.inc();
+        throw e;
+      }
+      ExecFuture future = new ExecFuture(command, session, channel, recorder, environment != null);
+      channel.setCommand(remoteCommand);
+      channel.setInputStream(input);
+      channel.setOutputStream(future.output);
+      channel.setErrStream(future.error);
+      try {
         channel.connect();
+        recorder.channelOpened();
         LOG.debug("Executing '{}' to {}@{}", command, getUsername(), getAddress());
+        future.started();
+        return future;
+      } catch (JSchException e) {
+        channel.disconnect();
+        if (session.isConnected() && CHANNEL_REFUSED.equals(e.getMessage())) {
+          // The session is fine, but the remote host has reached its MaxSessions limit
+          sessionPool.channelRefused(username, address, session);
+        } else {
+          releaseAfterChannelFailure(session);
+        }
+        if (attempt >= MAX_CHANNEL_ATTEMPTS) {
+          failures.inc();
+          throw e;
+        }
+        LOG.debug("Unable to open channel to {}@{}, retrying", username, address, e);
+      }
+    }
+  }
 
-        while (channel.getExitStatus() < 0) {
-          try {
-            Thread.sleep(250);
-          } catch (InterruptedException e) {
-            // Do nothing
-          }
+  /**
+   * Gives back a session on which a channel could not be opened. The session is shared with the other commands to
+   * the host, so it is only invalidated if it was lost; otherwise only this channel fails.
+   */
+  private void releaseAfterChannelFailure(Session session) {
+    if (session.isConnected()) {
+      sessionPool.release(username, address, session);
+    } else {
+      sessionPool.invalidate(username, address, session);
+    }
+  }
+
+  /**
+   * Returns how commands are run on the remote host.
+   */
+  public ExecMode getExecMode() {
+    return execMode;
+  }
+
+  /**
+   * Returns the command to send to sshd to run the given command in the given mode. Commands run through bash are
+   * quoted, so they may contain any character including single quotes.
+   *
+   * @param mode How the command is run
+   * @param command The command to be executed
+   * @param environment The exports of a login shell, used in {@link ExecMode#CACHED_LOGIN} mode
+   */
+  static String wrapCommand(ExecMode mode, String command, @Nullable String environment) {
+    switch (mode) {
+      case LOGIN:
+        return PROFILE_START + "bash -lc " + quote(PROFILE_END + command);
+      case BASH:
+        return "bash -c " + quote(command);
+      case DIRECT:
+        return command;
+      case CACHED_LOGIN:
+        if (environment == null) {
+          throw new IllegalArgumentException("The login environment is required in " + mode + " mode");
         }
-        return new ShellOutput(channel.getExitStatus(), output.toString(), error.toString());
-      } catch (IOException e) {
-        // Execution should never reach here because ByteArrayOutputStream should never throw this exception
-        throw new IllegalStateException("This should not happen", e);
-      } finally {
-        channel.disconnect();
+        return "bash -c " + quote(environment + command);
+      default:
+        throw new IllegalArgumentException("Unsupported exec mode: " + mode);
+    }
+  }
+
+  /**
+   * Quotes a string for a POSIX shell, as a single argument.
+   */
+  static String quote(String value) {
+    return "'" + value.replace("'", "'\\''") + "'";
+  }
+
+  /**
+   * Extracts the exports from the output of {@code export -p} printed after {@link #ENVIRONMENT_MARKER}, dropping
+   * the variables that describe the shell or the SSH connection.
+   */
+  static String parseEnvironment(String output) {
+    int markerIndex = output.indexOf(ENVIRONMENT_MARKER + "\n");
+    if (markerIndex < 0) {
+      throw new IllegalArgumentException("The environment marker was not found in the output");
+    }
+    StringBuilder environment = new StringBuilder();
+    boolean skipping = false;
+    for (String line : output.substring(markerIndex + ENVIRONMENT_MARKER.length() + 1).split("\n")) {
+      if (line.startsWith("declare -x ")) {
+        String name = line.substring("declare -x ".length()).split("=", 2)[0];
+        skipping = SESSION_VARIABLES.contains(name);
       }
+      // Lines that do not start a declaration continue a multi-line value
+      if (!skipping) {
+        environment.append(line).append('\n');
+      }
+    }
+    return environment.toString();
+  }
 
-    } finally {
-      session.disconnect();
+  private String captureLoginEnvironment() throws JSchException {
+    String command = "echo " + ENVIRONMENT_MARKER + "; export -p";
+    ShellOutput output = await(execAsync(command, null, ExecMode.LOGIN, null), command);
+    if (output.returnCode != 0) {
+      throw new JSchException(String.format("Capturing the login environment failed with return code %d: %s",
+                                            output.returnCode, output.errorOutput));
+    }
+    String environment;
+    try {
+      environment = parseEnvironment(output.standardOutput);
+    } catch (IllegalArgumentException e) {
+      throw new JSchException(e.getMessage(), e);
+    }
+    LOG.debug("Captured the login environment of {}@{}", username, address);
+    return environment;
+  }
+
+  private ShellOutput await(ListenableFuture<ShellOutput> future, String command) throws JSchException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new JSchException(String.format("Interrupted while executing '%s' on %s@%s", command, username, address),
+                              e);
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), JSchException.class);
+      throw Throwables.propagate(e.getCause());
     }
   }
 
@@ -172,6 +403,16 @@ public class SshShell {
     return this.address;
   }
 
+  private static synchronized SshSessionPool getDefaultSessionPool() {
+    if (defaultSessionPool == null) {
+      defaultSessionPool = new SshSessionPool(Constants.Ssh.DEFAULT_KEEP_ALIVE_SECONDS,
+                                              Constants.Ssh.DEFAULT_IDLE_TIMEOUT_SECONDS,
+                                              Constants.Ssh.DEFAULT_CONNECT_TIMEOUT_SECONDS,
+                                              Constants.Ssh.DEFAULT_MAX_CHANNELS);
+    }
+    return defaultSessionPool;
+  }
+
   /**
    * Execute a command on a remote host.
    *
@@ -182,4 +423,143 @@ public class SshShell {
   public ShellOutput exec(String command) throws JSchException {
     return exec(command, null);
   }
+
+  /**
+   * The pending result of a command. JSch closes the output streams of a channel when the channel is closed,
+   * either by the remote host once the command has exited or because the session was lost, which is used to
+   * complete the future without polling the exit status.
+   */
+  private final class ExecFuture extends AbstractFuture<ShellOutput> {
+    private final String command;
+    private final Session session;
+    private final ChannelExec channel;
+    private final ByteArrayOutputStream output;
+    private final ByteArrayOutputStream error;
+    private final AtomicBoolean released;
+    private final ShellTiming.Recorder recorder;
+    private final boolean usesLoginEnvironment;
+    // Publishes the marks made on the recorder by the thread that started the command
+    private volatile boolean started;
+
+    ExecFuture(String command, Session session, ChannelExec channel, ShellTiming.Recorder recorder,
+               boolean usesLoginEnvironment) {
+      this.command = command;
+      this.usesLoginEnvironment = usesLoginEnvironment;
+      this.session = session;
+      this.channel = channel;
+      this.recorder = recorder;
+      this.output = new ByteArrayOutputStream();
+      this.error = new CloseNotifyingOutputStream(this);
+      this.released = new AtomicBoolean();
+    }
+
+    /**
+     * Called once the channel is connected. Until then the channel is owned by {@link #execAsync}, which hands it
+     * back to the pool itself if it fails to connect.
+     */
+    void started() {
+      started = true;
+      // The command may have completed before the future was marked as started
+      streamClosed();
+    }
+
+    /**
+     * Called whenever JSch closes one of the output streams. The error stream is only closed when the channel is
+     * disconnected, at which point the exit status has been received if the command exited normally.
+     */
+    void streamClosed() {
+      if (!started || !channel.isClosed()) {
+        return;
+      }
+      long endNanos = System.nanoTime();
+      int exitStatus = channel.getExitStatus();
+      if (exitStatus < 0 && !session.isConnected()) {
+        if (setException(new JSchException(String.format("Session to %s@%s was lost before command completed",
+                                                         username, address)))) {
+          failures.inc();
+        }
+      } else {
+        String errorOutput = stripTimingMarkers(error.toString());
+        ShellTiming timing = recorder.build(endNanos);
+        if (usesLoginEnvironment && timing.authMicros != ShellTiming.NONE) {
+          // A new session was established, capture the environment again for the next command
+          loginEnvironment = null;
+        }
+        if (set(new ShellOutput(exitStatus, output.toString(), errorOutput, timing))) {
+          commands.inc();
+          for (Map.Entry<String, Long> phase : timing.getPhases().entrySet()) {
+            phaseTimers.get(phase.getKey()).record(phase.getValue(), TimeUnit.MICROSECONDS);
+          }
+          LOG.debug("Executed '{}' on {}@{}: {}", command, username, address, timing);
+        }
+      }
+      releaseChannel();
+    }
+
+    /**
+     * Removes the lines written to time the login profile from the standard error, and marks the time the profile
+     * took on the recorder. The profile is left unmeasured if the remote {@code date} cannot print nanoseconds.
+     */
+    private String stripTimingMarkers(String errorOutput) {
+      if (!errorOutput.contains(TIMING_MARKER)) {
+        return errorOutput;
+      }
+      Long start = null;
+      Long profiled = null;
+      StringBuilder stripped = new StringBuilder();
+      for (String line : errorOutput.split("(?<=\n)")) {
+        String[] parts = line.trim().split(" ");
+        if (parts.length != 3 || !TIMING_MARKER.equals(parts[0])) {
+          stripped.append(line);
+          continue;
+        }
+        try {
+          if ("start".equals(parts[1])) {
+            start = Long.parseLong(parts[2]);
+          } else {
+            profiled = Long.parseLong(parts[2]);
+          }
+        } catch (NumberFormatException e) {
+          LOG.trace("Unable to parse timing from {}: {}", address, line);
+        }
+      }
+      if (start != null && profiled != null && profiled >= start) {
+        recorder.profiled(TimeUnit.NANOSECONDS.toMicros(profiled - start));
+      }
+      return stripped.toString();
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      if (!super.cancel(mayInterruptIfRunning)) {
+        return false;
+      }
+      releaseChannel();
+      return true;
+    }
+
+    private void releaseChannel() {
+      if (released.compareAndSet(false, true)) {
+        channel.disconnect();
+        sessionPool.release(username, address, session);
+      }
+    }
+  }
+
+  /**
+   * A {@link ByteArrayOutputStream} that notifies an {@link ExecFuture} when it is closed.
+   */
+  private static final class CloseNotifyingOutputStream extends ByteArrayOutputStream {
+    private final ExecFuture future;
+
+    CloseNotifyingOutputStream(ExecFuture future) {
+      this.future = future;
+    }
+
+    @Override
+    public void close() throws IOException {
+      super.close();
+      future.streamClosed();
+    }
+  }
 }
@@ -16,10 +16,12 @@
 
 package io.cdap.chaosmonkey;
 
+import io.cdap.chaosmonkey.proto.ProcessOutcome;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 
@@ -30,23 +32,34 @@ public class Start implements Disruption {
   private static final Logger LOGGER = LoggerFactory.getLogger(Start.class);
 
   @Override
-  public void disrupt(Collection<RemoteProcess> processes, @Nullable Map<String, String> serviceArguments)
-    throws Exception {
-    for (RemoteProcess process : processes) {
-      if (!process.isRunning()) {
-        LOGGER.info("Attempting to {} {} on {}", this.getName(), process.getName(), process.getAddress());
-        process.execAndGetReturnCode(String.format("sudo service %s %s", process.getName(), this.getName()));
-
-        if (process.isRunning()) {
-          LOGGER.info("{} on {} is now running", process.getName(), process.getAddress());
-        } else {
-          LOGGER.error("{} on {} is still down after start attempt!", process.getName(), process.getAddress());
-        }
-      } else {
-        LOGGER.info("{} on {} is already running, skipping {} attempt", process.getName(), process.getAddress(),
-                    this.getName());
+  public List<ProcessOutcome> disrupt(Collection<RemoteProcess> processes,
+                                      @Nullable Map<String, String> serviceArguments) throws Exception {
+    int parallelism = ProcessFanOut.getParallelism(serviceArguments);
+    return ProcessFanOut.run(processes, parallelism, new ProcessFanOut.ProcessAction() {
+      @Override
+      public ProcessOutcome.Result apply(RemoteProcess process) throws Exception {
+        return startProcess(process);
       }
+    });
+  }
+
+  private ProcessOutcome.Result startProcess(RemoteProcess process) throws Exception {
+    if (process.isRunning()) {
+      LOGGER.info("{} on {} is already running, skipping {} attempt", process.getName(), process.getAddress(),
+                  this.getName());
+      return ProcessOutcome.Result.SKIPPED;
+    }
+
+    LOGGER.info("Attempting to {} {} on {}", this.getName(), process.getName(), process.getAddress());
+    process.execAndGetReturnCode(String.format("sudo service %s %s", process.getName(), this.getName()));
+
+    if (process.isRunning()) {
+      LOGGER.info("{} on {} is now running", process.getName(), process.getAddress());
+      RecoveryTracker.getDefault().started(process);
+      return ProcessOutcome.Result.SUCCEEDED;
     }
+    LOGGER.error("{} on {} is still down after start attempt!", process.getName(), process.getAddress());
+    return ProcessOutcome.Result.FAILED;
   }
 
   @Override
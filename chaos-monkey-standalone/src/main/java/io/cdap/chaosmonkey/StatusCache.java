@@ -0,0 +1,199 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.AbstractScheduledService;
+import com.google.common.util.concurrent.SettableFuture;
+import io.cdap.chaosmonkey.proto.NodeStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduled service that keeps a snapshot of the status of every configured service on every node, so that status
+ * queries do not each sweep the whole cluster over SSH. Refreshes are spread out with a random jitter so that the
+ * sweep does not line up with other periodic work.
+ */
+public class StatusCache extends AbstractScheduledService {
+  private static final Logger LOG = LoggerFactory.getLogger(StatusCache.class);
+
+  private final ChaosMonkeyService chaosMonkeyService;
+  private final long refreshMillis;
+  private final double jitter;
+  private final Object refreshLock;
+  // The latest sweep in progress, if any, guarded by refreshLock
+  private Sweep sweep;
+  private volatile Snapshot snapshot;
+
+  /**
+   * @param chaosMonkeyService The {@link ChaosMonkeyService} used to probe the nodes
+   * @param refreshSeconds The average number of seconds between refreshes
+   * @param jitter The fraction of refreshSeconds by which each refresh is randomly moved earlier or later
+   */
+  public StatusCache(ChaosMonkeyService chaosMonkeyService, int refreshSeconds, double jitter) {
+    if (refreshSeconds <= 0) {
+      throw new IllegalArgumentException("refreshSeconds must be greater than zero: " + refreshSeconds);
+    }
+    if (jitter < 0 || jitter >= 1) {
+      throw new IllegalArgumentException("jitter must be between 0 and 1: " + jitter);
+    }
+    this.chaosMonkeyService = chaosMonkeyService;
+    this.refreshMillis = TimeUnit.SECONDS.toMillis(refreshSeconds);
+    this.jitter = jitter;
+    this.refreshLock = new Object();
+  }
+
+  /**
+   * Returns the latest snapshot, probing the nodes first if no snapshot has been taken yet.
+   */
+  public Snapshot getSnapshot() throws Exception {
+    Snapshot current = snapshot;
+    return current == null ? sweep(false, 0) : current;
+  }
+
+  /**
+   * Probes all nodes and replaces the snapshot with the result. A sweep that started after this call is shared
+   * rather than repeated, but one that was already in progress is not, as it may predate changes the caller made.
+   *
+   * @return The new snapshot
+   */
+  public Snapshot refresh() throws Exception {
+    return sweep(true, System.nanoTime());
+  }
+
+  /**
+   * Returns the snapshot of the sweep in progress if it may be shared, or of a new sweep.
+   *
+   * @param fresh Whether only a sweep started no earlier than requestedNanos may be shared
+   * @param requestedNanos The {@link System#nanoTime()} at which fresh results were requested
+   */
+  private Snapshot sweep(boolean fresh, long requestedNanos) throws Exception {
+    Sweep current;
+    boolean owner = false;
+    synchronized (refreshLock) {
+      current = sweep;
+      if (current == null || (fresh && current.startNanos - requestedNanos < 0)) {
+        current = new Sweep(System.nanoTime());
+        sweep = current;
+        owner = true;
+      }
+    }
+    if (!owner) {
+      try {
+        return current.result.get();
+      } catch (ExecutionException e) {
+        Throwables.propagateIfPossible(e.getCause(), Exception.class);
+        throw Throwables.propagate(e.getCause());
+      }
+    }
+
+    try {
+      long timestamp = System.currentTimeMillis();
+      Snapshot newSnapshot = new Snapshot(chaosMonkeyService.getNodeStatuses(), timestamp);
+      synchronized (refreshLock) {
+        // An older sweep that overlapped a newer one must not replace its snapshot
+        if (snapshot == null || snapshot.getTimestamp() <= timestamp) {
+          snapshot = newSnapshot;
+        }
+      }
+      current.result.set(newSnapshot);
+      return newSnapshot;
+    } catch (Throwable t) {
+      current.result.setException(t);
+      throw t;
+    } finally {
+      synchronized (refreshLock) {
+        if (sweep == current) {
+          sweep = null;
+        }
+      }
+    }
+  }
+
+  @Override
+  protected void runOneIteration() throws Exception {
+    try {
+      // A sweep already in progress is recent enough for the periodic refresh
+      sweep(false, 0);
+    } catch (Exception e) {
+      // Keep serving the previous snapshot, it will show its age
+      LOG.warn("Unable to refresh the status of the cluster", e);
+    }
+  }
+
+  @Override
+  protected Scheduler scheduler() {
+    return new CustomScheduler() {
+      @Override
+      protected Schedule getNextSchedule() throws Exception {
+        long spread = (long) (refreshMillis * jitter);
+        long delay = refreshMillis + (spread == 0 ? 0 : ThreadLocalRandom.current().nextLong(-spread, spread + 1));
+        return new Schedule(delay, TimeUnit.MILLISECONDS);
+      }
+    };
+  }
+
+  /**
+   * A sweep of all nodes, shared by the callers that arrive while it is in progress and accept its start time.
+   */
+  private static final class Sweep {
+    private final long startNanos;
+    private final SettableFuture<Snapshot> result;
+
+    Sweep(long startNanos) {
+      this.startNanos = startNanos;
+      this.result = SettableFuture.create();
+    }
+  }
+
+  /**
+   * An immutable view of the status of the cluster at a point in time.
+   */
+  public static final class Snapshot {
+    private final Collection<NodeStatus> statuses;
+    private final long timestamp;
+
+    Snapshot(Collection<NodeStatus> statuses, long timestamp) {
+      this.statuses = ImmutableList.copyOf(statuses);
+      this.timestamp = timestamp;
+    }
+
+    public Collection<NodeStatus> getStatuses() {
+      return statuses;
+    }
+
+    /**
+     * Returns the time at which the nodes were probed, in milliseconds since epoch.
+     */
+    public long getTimestamp() {
+      return timestamp;
+    }
+
+    /**
+     * Returns the number of milliseconds since the nodes were probed.
+     */
+    public long getAgeMillis() {
+      return Math.max(0, System.currentTimeMillis() - timestamp);
+    }
+  }
+}
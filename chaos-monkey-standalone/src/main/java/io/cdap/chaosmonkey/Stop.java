@@ -23,6 +23,17 @@ import com.jcraft.jsch.JSchException;
  */
 public class Stop extends AbstractHaltingDisruption {
 
+  public Stop() {
+    super();
+  }
+
+  /**
+   * @param trackRecovery Whether stopped processes are watched by the {@link RecoveryTracker}
+   */
+  Stop(boolean trackRecovery) {
+    super(trackRecovery);
+  }
+
   @Override
   public String getName() {
     return "stop";
@@ -20,6 +20,8 @@ import com.jcraft.jsch.JSchException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 /**
  * A remote process that ScheduledDisruption can interact with.
  */
@@ -29,18 +31,34 @@ public class SysVRemoteProcess implements RemoteProcess {
   protected final String name;
   protected final String pidFilePath;
   protected final SshShell sshShell;
+  protected final LivenessProbe livenessProbe;
 
   /**
-   * Create a new {@code RemoteProcess}.
+   * Create a new {@code RemoteProcess} whose status is checked with its init script.
    *
    * @param name The name of the process on the remote host
    * @param pidFilePath The path to its pidfile on the remote host
    * @param sshShell The {@code SshShell} that should be used to execute remote commands on the remote
    */
   public SysVRemoteProcess(String name, String pidFilePath, SshShell sshShell) {
+    this(name, pidFilePath, sshShell, null);
+  }
+
+  /**
+   * Create a new {@code RemoteProcess}.
+   *
+   * @param name The name of the process on the remote host
+   * @param pidFilePath The path to its pidfile on the remote host
+   * @param sshShell The {@code SshShell} that should be used to execute remote commands on the remote
+   * @param livenessProbe The {@link LivenessProbe} checking whether the process is running, or {@code null} to
+   *                      check with the init script
+   */
+  public SysVRemoteProcess(String name, String pidFilePath, SshShell sshShell,
+                           @Nullable LivenessProbe livenessProbe) {
     this.name = name;
     this.pidFilePath = pidFilePath;
     this.sshShell = sshShell;
+    this.livenessProbe = livenessProbe == null ? new LivenessProbe.InitScript() : livenessProbe;
   }
 
   @Override
@@ -70,6 +88,29 @@ public class SysVRemoteProcess implements RemoteProcess {
     return this.pidFilePath;
   }
 
+  /**
+   * Returns the {@link SshShell} used to execute remote commands on the host of this process.
+   */
+  public SshShell getSshShell() {
+    return this.sshShell;
+  }
+
+  /**
+   * Returns the {@link LivenessProbe} checking whether this process is running.
+   */
+  public LivenessProbe getLivenessProbe() {
+    return this.livenessProbe;
+  }
+
+  /**
+   * Returns the command that exits with zero if and only if this process is running, or {@code null} if the
+   * {@link LivenessProbe} of this process checks it without running a remote command.
+   */
+  @Nullable
+  public String getStatusCommand() {
+    return livenessProbe.getCommand(this);
+  }
+
   /**
    * Returns whether the process is running.
    *
@@ -79,6 +120,6 @@ public class SysVRemoteProcess implements RemoteProcess {
   @Override
   public boolean isRunning() throws JSchException {
     LOG.debug("Checking the status of {} on {}@{}", getName(), sshShell.getUsername(), sshShell.getAddress());
-    return execAndReturnSucessful(String.format("sudo service %s status", this.name));
+    return livenessProbe.isRunning(this);
   }
 }
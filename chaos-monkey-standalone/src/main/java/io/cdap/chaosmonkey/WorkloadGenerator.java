@@ -0,0 +1,406 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import com.google.common.util.concurrent.AbstractExecutionThreadService;
+import io.cdap.chaosmonkey.proto.WorkloadInterval;
+import io.cdap.chaosmonkey.proto.WorkloadReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Sends requests to a target at a constant rate and reports throughput and latency per interval, tagged with the
+ * disruptions that were active during the interval, so that the impact of a disruption can be read from one report.
+ *
+ * The load follows an open model: requests are due at fixed times whatever the target does, and their latency is
+ * measured from the time they were due rather than the time they were sent. A slow target therefore shows up as
+ * high latency instead of as a lower sending rate, which would otherwise hide the stall (coordinated omission).
+ * Requests that cannot be sent because maxInFlight requests are outstanding wait in a queue, and fail once they have
+ * waited for longer than the timeout.
+ *
+ * All requests are driven by a single thread with non-blocking sockets. A TCP request succeeds once the connection
+ * is established. An HTTP request is a GET on a new connection and succeeds if the response has a 2xx status; it
+ * completes when the target closes the connection.
+ */
+public class WorkloadGenerator extends AbstractExecutionThreadService {
+  private static final Logger LOG = LoggerFactory.getLogger(WorkloadGenerator.class);
+  private static final int STATUS_LINE_BYTES = 16;
+  private static final long MAX_SELECT_MILLIS = 100;
+
+  private final String name;
+  private final String target;
+  private final String host;
+  private final int port;
+  private final ByteBuffer request;
+  private final double ratePerSecond;
+  private final double periodNanos;
+  private final long timeoutNanos;
+  private final int maxInFlight;
+  private final long intervalNanos;
+  private final int retainedIntervals;
+  private final Deque<WorkloadInterval> intervals;
+  private final ByteBuffer readBuffer;
+  private final MetricsRegistry.Counter succeededRequests;
+  private final MetricsRegistry.Counter failedRequests;
+  private final MetricsRegistry.Timer latency;
+  private Selector selector;
+  private InetSocketAddress address;
+
+  private WorkloadGenerator(String name, String target, String host, int port, @Nullable byte[] request,
+                            double ratePerSecond, int timeoutMillis, int maxInFlight, int intervalSeconds,
+                            int retainedIntervals) {
+    if (!(ratePerSecond > 0) || timeoutMillis <= 0 || maxInFlight <= 0 || intervalSeconds <= 0) {
+      throw new IllegalArgumentException(String.format("ratePerSecond, timeoutMillis, maxInFlight and intervalSeconds "
+                                                         + "of workload %s must be positive", name));
+    }
+    this.name = name;
+    this.target = target;
+    this.host = host;
+    this.port = port;
+    this.request = request == null ? null : ByteBuffer.wrap(request).asReadOnlyBuffer();
+    this.ratePerSecond = ratePerSecond;
+    this.periodNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+    this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    this.maxInFlight = maxInFlight;
+    this.intervalNanos = TimeUnit.SECONDS.toNanos(intervalSeconds);
+    this.retainedIntervals = retainedIntervals;
+    this.intervals = new ArrayDeque<>();
+    this.readBuffer = ByteBuffer.allocate(8192);
+    MetricsRegistry metrics = MetricsRegistry.getDefault();
+    this.succeededRequests = metrics.counter("chaosmonkey_workload_requests_total", "Number of workload requests",
+                                             "workload", name, "result", "succeeded");
+    this.failedRequests = metrics.counter("chaosmonkey_workload_requests_total", "Number of workload requests",
+                                          "workload", name, "result", "failed");
+    this.latency = metrics.timer("chaosmonkey_workload_latency_seconds",
+                                 "Latency of successful workload requests, from the time they were due",
+                                 "workload", name);
+  }
+
+  /**
+   * Creates a workload that opens TCP connections.
+   *
+   * @param name The name of the workload
+   * @param host The host to connect to
+   * @param port The port to connect to
+   * @param ratePerSecond The number of requests per second
+   * @param timeoutMillis The time after which a request fails
+   * @param maxInFlight The maximum number of outstanding requests
+   * @param intervalSeconds The length of the reported intervals
+   * @param retainedIntervals The number of reported intervals kept
+   */
+  public static WorkloadGenerator tcp(String name, String host, int port, double ratePerSecond, int timeoutMillis,
+                                      int maxInFlight, int intervalSeconds, int retainedIntervals) {
+    return new WorkloadGenerator(name, "tcp://" + host + ":" + port, host, port, null, ratePerSecond, timeoutMillis,
+                                 maxInFlight, intervalSeconds, retainedIntervals);
+  }
+
+  /**
+   * Creates a workload that sends HTTP GET requests, each on a new connection.
+   *
+   * @param name The name of the workload
+   * @param url The URL to get, only plain http is supported
+   * @param ratePerSecond The number of requests per second
+   * @param timeoutMillis The time after which a request fails
+   * @param maxInFlight The maximum number of outstanding requests
+   * @param intervalSeconds The length of the reported intervals
+   * @param retainedIntervals The number of reported intervals kept
+   */
+  public static WorkloadGenerator http(String name, URL url, double ratePerSecond, int timeoutMillis,
+                                       int maxInFlight, int intervalSeconds, int retainedIntervals) {
+    if (!"http".equals(url.getProtocol())) {
+      throw new IllegalArgumentException(String.format("Workload %s only supports http URLs: %s", name, url));
+    }
+    int port = url.getPort() < 0 ? url.getDefaultPort() : url.getPort();
+    String path = url.getFile().isEmpty() ? "/" : url.getFile();
+    String hostHeader = url.getPort() < 0 ? url.getHost() : url.getHost() + ":" + port;
+    String request = String.format("GET %s HTTP/1.1\r\nHost: %s\r\nUser-Agent: chaos-monkey\r\n"
+                                     + "Connection: close\r\n\r\n", path, hostHeader);
+    return new WorkloadGenerator(name, url.toString(), url.getHost(), port,
+                                 request.getBytes(StandardCharsets.US_ASCII), ratePerSecond, timeoutMillis,
+                                 maxInFlight, intervalSeconds, retainedIntervals);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the completed intervals that are retained, oldest first.
+   */
+  public WorkloadReport getReport() {
+    synchronized (intervals) {
+      return new WorkloadReport(name, target, ratePerSecond, new ArrayList<>(intervals));
+    }
+  }
+
+  @Override
+  protected void startUp() throws Exception {
+    // Resolved once, so that a slow name server does not delay requests
+    address = new InetSocketAddress(host, port);
+    selector = Selector.open();
+    LOG.info("Sending {} requests per second to {} for workload {}", ratePerSecond, target, name);
+  }
+
+  @Override
+  protected void run() throws Exception {
+    long startNanos = System.nanoTime();
+    long due = 0;
+    Deque<Long> queued = new ArrayDeque<>();
+    Set<Request> inFlight = new LinkedHashSet<>();
+    Interval interval = new Interval(System.currentTimeMillis(), startNanos);
+
+    while (isRunning()) {
+      long nowNanos = System.nanoTime();
+      long dueNanos = startNanos + (long) (due * periodNanos);
+      while (dueNanos <= nowNanos) {
+        queued.addLast(dueNanos);
+        interval.scheduled++;
+        due++;
+        dueNanos = startNanos + (long) (due * periodNanos);
+      }
+      while (!queued.isEmpty() && (inFlight.size() < maxInFlight || nowNanos - queued.peekFirst() >= timeoutNanos)) {
+        long intendedNanos = queued.pollFirst();
+        if (nowNanos - intendedNanos >= timeoutNanos) {
+          failed(interval);
+        } else {
+          send(new Request(intendedNanos, nowNanos), inFlight, interval);
+        }
+      }
+      // Requests are sent in order and share the timeout, so the oldest ones time out first
+      Iterator<Request> iterator = inFlight.iterator();
+      while (iterator.hasNext()) {
+        Request oldest = iterator.next();
+        if (nowNanos - oldest.sentNanos < timeoutNanos) {
+          break;
+        }
+        iterator.remove();
+        oldest.close();
+        failed(interval);
+      }
+      if (nowNanos - interval.startNanos >= intervalNanos) {
+        finish(interval, nowNanos);
+        interval = new Interval(interval.startMillis + TimeUnit.NANOSECONDS.toMillis(nowNanos - interval.startNanos),
+                                nowNanos);
+      }
+
+      long nextNanos = Math.min(dueNanos, interval.startNanos + intervalNanos);
+      if (!inFlight.isEmpty()) {
+        nextNanos = Math.min(nextNanos, inFlight.iterator().next().sentNanos + timeoutNanos);
+      }
+      long waitMillis = Math.min(MAX_SELECT_MILLIS,
+                                 TimeUnit.NANOSECONDS.toMillis(nextNanos - System.nanoTime() + 999999));
+      if (waitMillis > 0) {
+        selector.select(waitMillis);
+      } else {
+        selector.selectNow();
+      }
+      Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+      while (keys.hasNext()) {
+        SelectionKey key = keys.next();
+        keys.remove();
+        handle(key, inFlight, interval);
+      }
+    }
+
+    for (Request outstanding : inFlight) {
+      outstanding.close();
+    }
+  }
+
+  @Override
+  protected void triggerShutdown() {
+    Selector current = selector;
+    if (current != null) {
+      current.wakeup();
+    }
+  }
+
+  @Override
+  protected void shutDown() throws Exception {
+    selector.close();
+  }
+
+  @Override
+  protected String serviceName() {
+    return "workload-" + name;
+  }
+
+  private void send(Request request, Set<Request> inFlight, Interval interval) {
+    inFlight.add(request);
+    try {
+      request.channel = SocketChannel.open();
+      request.channel.configureBlocking(false);
+      request.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      if (request.channel.connect(address)) {
+        connected(request, inFlight, interval);
+      } else {
+        request.channel.register(selector, SelectionKey.OP_CONNECT, request);
+      }
+    } catch (IOException e) {
+      complete(request, false, inFlight, interval);
+    }
+  }
+
+  private void connected(Request request, Set<Request> inFlight, Interval interval) throws IOException {
+    if (this.request == null) {
+      complete(request, true, inFlight, interval);
+      return;
+    }
+    request.write = this.request.duplicate();
+    request.channel.register(selector, SelectionKey.OP_WRITE, request);
+  }
+
+  private void handle(SelectionKey key, Set<Request> inFlight, Interval interval) {
+    Request request = (Request) key.attachment();
+    try {
+      if (!key.isValid()) {
+        return;
+      }
+      if (key.isConnectable()) {
+        request.channel.finishConnect();
+        connected(request, inFlight, interval);
+      } else if (key.isWritable()) {
+        request.channel.write(request.write);
+        if (!request.write.hasRemaining()) {
+          key.interestOps(SelectionKey.OP_READ);
+        }
+      } else if (key.isReadable()) {
+        readBuffer.clear();
+        int read = request.channel.read(readBuffer);
+        if (read < 0) {
+          complete(request, request.isSuccessStatus(), inFlight, interval);
+          return;
+        }
+        readBuffer.flip();
+        while (readBuffer.hasRemaining() && request.statusLine.length() < STATUS_LINE_BYTES) {
+          request.statusLine.append((char) readBuffer.get());
+        }
+      }
+    } catch (IOException e) {
+      complete(request, false, inFlight, interval);
+    }
+  }
+
+  private void complete(Request request, boolean succeeded, Set<Request> inFlight, Interval interval) {
+    if (!inFlight.remove(request)) {
+      return;
+    }
+    request.close();
+    if (!succeeded) {
+      failed(interval);
+      return;
+    }
+    long nowNanos = System.nanoTime();
+    long latencyNanos = nowNanos - request.intendedNanos;
+    interval.latency.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    interval.serviceTime.record(TimeUnit.NANOSECONDS.toMicros(nowNanos - request.sentNanos));
+    interval.succeeded++;
+    succeededRequests.inc();
+    latency.record(latencyNanos, TimeUnit.NANOSECONDS);
+  }
+
+  private void failed(Interval interval) {
+    interval.failed++;
+    failedRequests.inc();
+  }
+
+  private void finish(Interval interval, long endNanos) {
+    long endMillis = interval.startMillis + TimeUnit.NANOSECONDS.toMillis(endNanos - interval.startNanos);
+    WorkloadInterval completed = new WorkloadInterval(
+      interval.startMillis, endMillis, interval.scheduled, interval.succeeded, interval.failed,
+      interval.latency.snapshot().toSummary(), interval.serviceTime.snapshot().toSummary(),
+      ActiveDisruptions.getDefault().getActive(interval.startMillis, endMillis),
+      BlastRadiusBudget.getDefault().getReserved());
+    synchronized (intervals) {
+      intervals.addLast(completed);
+      while (intervals.size() > retainedIntervals) {
+        intervals.removeFirst();
+      }
+    }
+  }
+
+  /**
+   * A request that was sent and did not complete yet.
+   */
+  private static final class Request {
+    private final long intendedNanos;
+    private final long sentNanos;
+    private final StringBuilder statusLine = new StringBuilder();
+    private SocketChannel channel;
+    private ByteBuffer write;
+
+    Request(long intendedNanos, long sentNanos) {
+      this.intendedNanos = intendedNanos;
+      this.sentNanos = sentNanos;
+    }
+
+    /**
+     * Returns whether the start of the response is the status line of a 2xx response.
+     */
+    boolean isSuccessStatus() {
+      // HTTP/1.1 200
+      return statusLine.length() >= 12 && statusLine.indexOf("HTTP/") == 0 && statusLine.charAt(9) == '2';
+    }
+
+    void close() {
+      if (channel == null) {
+        return;
+      }
+      try {
+        channel.close();
+      } catch (IOException e) {
+        LOG.trace("Unable to close workload connection", e);
+      }
+    }
+  }
+
+  /**
+   * The measurements of the current interval.
+   */
+  private static final class Interval {
+    private final long startMillis;
+    private final long startNanos;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram serviceTime = new LatencyHistogram();
+    private long scheduled;
+    private long succeeded;
+    private long failed;
+
+    Interval(long startMillis, long startNanos) {
+      this.startMillis = startMillis;
+      this.startNanos = startNanos;
+    }
+  }
+}
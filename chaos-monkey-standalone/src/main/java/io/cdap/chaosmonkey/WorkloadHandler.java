@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import com.google.gson.Gson;
+import io.cdap.chaosmonkey.common.Constants;
+import io.cdap.chaosmonkey.proto.WorkloadReport;
+import io.cdap.http.AbstractHttpHandler;
+import io.cdap.http.HttpResponder;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+
+/**
+ * Serves the reports of the {@link WorkloadGenerator}s.
+ */
+@Path(Constants.Server.API_VERSION_1)
+public class WorkloadHandler extends AbstractHttpHandler {
+  private static final Gson GSON = new Gson();
+
+  private final Collection<WorkloadGenerator> workloads;
+
+  WorkloadHandler(Collection<WorkloadGenerator> workloads) {
+    this.workloads = workloads;
+  }
+
+  /**
+   * Gets the recent intervals of every workload
+   */
+  @GET
+  @Path("/workloads")
+  public void getWorkloads(HttpRequest request, HttpResponder responder) {
+    List<WorkloadReport> reports = new ArrayList<>();
+    for (WorkloadGenerator workload : workloads) {
+      reports.add(workload.getReport());
+    }
+    responder.sendJson(HttpResponseStatus.OK, GSON.toJson(reports));
+  }
+
+  /**
+   * Gets the recent intervals of a workload
+   */
+  @GET
+  @Path("/workloads/{name}")
+  public void getWorkload(HttpRequest request, HttpResponder responder, @PathParam("name") String name) {
+    for (WorkloadGenerator workload : workloads) {
+      if (workload.getName().equals(name)) {
+        responder.sendJson(HttpResponseStatus.OK, GSON.toJson(workload.getReport()));
+        return;
+      }
+    }
+    throw new NotFoundException("Unknown workload: " + name);
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link ArrivalModel}.
+ */
+public class ArrivalModelTest {
+
+  @Test
+  public void testFixedRate() {
+    ArrivalModel model = new ArrivalModel.FixedRate(60, TimeUnit.SECONDS);
+    Assert.assertEquals(0, model.firstDelayNanos());
+    Assert.assertEquals(TimeUnit.SECONDS.toNanos(60), model.nextDelayNanos());
+    Assert.assertEquals(60, model.getRatePerHour(), 1e-9);
+  }
+
+  @Test
+  public void testPoissonRate() {
+    assertRate(new ArrivalModel.Poisson(12, new Random(42)), 200000);
+  }
+
+  @Test
+  public void testBurstRate() {
+    // Long bursts, so that many ticks are needed for the rate to converge
+    assertRate(new ArrivalModel.Burst(12, 20, 0.1, 600, new Random(42)), 400000);
+    // Without bursts, the model is a Poisson process
+    assertRate(new ArrivalModel.Burst(12, 20, 0, 600, new Random(42)), 200000);
+  }
+
+  @Test
+  public void testSeeded() {
+    ArrivalModel first = new ArrivalModel.Burst(12, 20, 0.1, 600, new Random(7));
+    ArrivalModel second = new ArrivalModel.Burst(12, 20, 0.1, 600, new Random(7));
+    for (int i = 0; i < 1000; i++) {
+      Assert.assertEquals(first.nextDelayNanos(), second.nextDelayNanos());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidBurstFraction() {
+    new ArrivalModel.Burst(12, 20, 1, 600, new Random());
+  }
+
+  private void assertRate(ArrivalModel model, int ticks) {
+    long totalNanos = model.firstDelayNanos();
+    for (int i = 1; i < ticks; i++) {
+      totalNanos += model.nextDelayNanos();
+    }
+    double ratePerHour = ticks / ((double) totalNanos / TimeUnit.HOURS.toNanos(1));
+    Assert.assertEquals(model.getRatePerHour(), ratePerHour, model.getRatePerHour() * 0.02);
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.chaosmonkey;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests for {@link BlastRadiusBudget}.
+ */
+public class BlastRadiusBudgetTest {
+
+  @Test
+  public void testServiceLimit() {
+    BlastRadiusBudget budget = new BlastRadiusBudget(0, 0, ImmutableMap.of("hbase-regionserver", 1), 0);
+    Assert.assertNotNull(budget.tryReserve(new StubRemoteProcess("hbase-regionserver", "host1")));
+    Assert.assertNull(budget.tryReserve(new StubRemoteProcess("hbase-regionserver", "host2")));
+    // Services without a limit are unlimited
+    Assert.assertNotNull(budget.tryReserve(new StubRemoteProcess("hadoop-yarn-nodemanager", "host1")));
+    Assert.assertNotNull(budget.tryReserve(new StubRemoteProcess("hadoop-yarn-nodemanager", "host2")));
+    Assert.assertEquals(3, budget.getDown());
+  }
+
+  @Test
+  public void testHostLimit() {
+    BlastRadiusBudget budget = new BlastRadiusBudget(0, 1, Collections.<String, Integer>emptyMap(), 0);
+    Assert.assertNotNull(budget.tryReserve(new StubRemoteProcess("hbase-regionserver", "host1")));
+    Assert.assertNull(budget.tryReserve(new StubRemoteProcess("hadoop-yarn-nodemanager", "host1")));
+    Assert.assertNotNull(budget.tryReserve(new StubRemoteProcess("hadoop-yarn-nodemanager", "host2")));
+    Assert.assertEquals(2, budget.getDown());
+  }
+
+  @Test
+  public void testClusterLimit() {
+    BlastRadiusBudget budget = new BlastRadiusBudget(2, 0, Collections.<String, Integer>emptyMap(), 0);
+    Assert.assertNotNull(budget.tryReserve(new StubRemoteProcess("hbase-regionserver", "host1")));
+    Assert.assertNotNull(budget.tryReserve(new StubRemoteProcess("hbase-regionserver", "host2")));
+    Assert.assertNull(budget.tryReserve(new StubRemoteProcess("hbase-regionserver", "host3")));
+    Assert.assertEquals(2, budget.getDown());
+  }
+
+  @Test
+  public void testRollback() {
+    BlastRadiusBudget budget = new BlastRadiusBudget(1, 0, ImmutableMap.of("hbase-regionserver", 2), 0);
+    BlastRadiusBudget.Reservation first = budget.tryReserve(new StubRemoteProcess("hbase-master", "host1"));
+    Assert.assertNotNull(first);
+    // Turned away by the cluster limit, the service and host counts taken on the way must be given back
+    Assert.assertNull(budget.tryReserve(new StubRemoteProcess("hbase-regionserver", "host2")));
+    Assert.assertEquals(Arrays.asList("hbase-master@host1"), budget.getReserved());
+    first.release();
+    Assert.assertNotNull(budget.tryReserve(new StubRemoteProcess("hbase-regionserver", "host2")));
+    Assert.assertNull(budget.tryReserve(new StubRemoteProcess("hbase-regionserver", "host3")));
+    Assert.assertEquals(1, budget.getDown());
+  }
+
+  @Test
+  public void testAlreadyReserved() {
+    BlastRadiusBudget budget = new BlastRadiusBudget(0, 0, Collections.<String, Integer>emptyMap(), 0);
+    StubRemoteProcess process = new StubRemoteProcess("hbase-regionserver", "host1");
+    BlastRadiusBudget.Reservation reservation = budget.tryReserve(process);
+    Assert.assertNotNull(reservation);
+    Assert.assertNull(budget.tryReserve(process));
+    Assert.assertNull(budget.tryReserve(new StubRemoteProcess("hbase-regionserver", "host1")));
+    Assert.assertEquals(1, budget.getDown());
+    reservation.release();
+    Assert.assertNotNull(budget.tryReserve(process));
+  }
+
+  @Test
+  public void testRelease() {
+    BlastRadiusBudget budget = new BlastRadiusBudget(1, 0, Collections.<String, Integer>emptyMap(), 0);
+    StubRemoteProcess process = new StubRemoteProcess("hbase-regionserver", "host1");
+    BlastRadiusBudget.Reservation first = budget.tryReserve(process);
+    Assert.assertNotNull(first);
+    first.release();
+    Assert.assertEquals(0, budget.getDown());
+    Assert.assertTrue(budget.getReserved().isEmpty());
+
+    // Releasing again must not give back the reservation made since
+    BlastRadiusBudget.Reservation second = budget.tryReserve(process);
+    Assert.assertNotNull(second);
+    first.release();
+    Assert.assertEquals(1, budget.getDown());
+    Assert.assertEquals(Arrays.asList("hbase-regionserver@host1"), budget.getReserved());
+    second.release();
+    second.release();
+    Assert.assertEquals(0, budget.getDown());
+    Assert.assertNotNull(budget.tryReserve(new StubRemoteProcess("hbase-regionserver", "host2")));
+  }
+}
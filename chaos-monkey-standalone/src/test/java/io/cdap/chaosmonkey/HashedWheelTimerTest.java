@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tests for {@link HashedWheelTimer}.
+ */
+public class HashedWheelTimerTest {
+
+  @Test
+  public void testTimeouts() throws Exception {
+    // A small wheel, so that the long timeout goes around it more than once
+    HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, TimeUnit.MILLISECONDS, 4);
+    try {
+      final long startNanos = System.nanoTime();
+      final long[] firedNanos = new long[2];
+      final CountDownLatch latch = new CountDownLatch(2);
+      final AtomicBoolean cancelledFired = new AtomicBoolean();
+      timer.newTimeout(new Fired(firedNanos, 0, latch), 20, TimeUnit.MILLISECONDS);
+      timer.newTimeout(new Fired(firedNanos, 1, latch), 150, TimeUnit.MILLISECONDS);
+      HashedWheelTimer.Timeout cancelled = timer.newTimeout(new Runnable() {
+        @Override
+        public void run() {
+          cancelledFired.set(true);
+        }
+      }, 30, TimeUnit.MILLISECONDS);
+      cancelled.cancel();
+
+      Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+      Assert.assertFalse("Cancelled timeout fired", cancelledFired.get());
+      Assert.assertTrue(firedNanos[0] - startNanos >= TimeUnit.MILLISECONDS.toNanos(20));
+      Assert.assertTrue(firedNanos[1] - startNanos >= TimeUnit.MILLISECONDS.toNanos(150));
+    } finally {
+      timer.stop();
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testStopped() {
+    HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, TimeUnit.MILLISECONDS, 4);
+    timer.stop();
+    timer.newTimeout(new Runnable() {
+      @Override
+      public void run() {
+      }
+    }, 0, TimeUnit.MILLISECONDS);
+  }
+
+  private static final class Fired implements Runnable {
+    private final long[] firedNanos;
+    private final int index;
+    private final CountDownLatch latch;
+
+    Fired(long[] firedNanos, int index, CountDownLatch latch) {
+      this.firedNanos = firedNanos;
+      this.index = index;
+      this.latch = latch;
+    }
+
+    @Override
+    public void run() {
+      firedNanos[index] = System.nanoTime();
+      latch.countDown();
+    }
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.chaosmonkey;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link HostStatusProbe}.
+ */
+public class HostStatusProbeTest {
+
+  @Test
+  public void testParseReturnCodes() {
+    String output = "Welcome to host1\n"
+      + "chaosmonkey-status 0 0\n"
+      + "chaosmonkey-status 1 3\r\n"
+      + "  chaosmonkey-status 2 0  \n"
+      + "\n";
+    Assert.assertEquals(ImmutableMap.of(0, 0, 1, 3, 2, 0), HostStatusProbe.parseReturnCodes("host1", output));
+  }
+
+  @Test
+  public void testParseMalformedReturnCodes() {
+    String output = "chaosmonkey-status 0\n"
+      + "chaosmonkey-status one 0\n"
+      + "chaosmonkey-status 1 0 extra\n"
+      + "chaosmonkey-statuses 2 0\n"
+      + "chaosmonkey-status 3 1\n";
+    // Processes without a valid status line are checked one by one
+    Assert.assertEquals(ImmutableMap.of(3, 1), HostStatusProbe.parseReturnCodes("host1", output));
+    Assert.assertTrue(HostStatusProbe.parseReturnCodes("host1", "").isEmpty());
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.chaosmonkey;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for {@link LaneExecutor}.
+ */
+public class LaneExecutorTest {
+
+  @Test
+  public void testGlobalCap() throws Exception {
+    LaneExecutor executor = new LaneExecutor("test-lanes", 2, 10);
+    try {
+      CountDownLatch started = new CountDownLatch(2);
+      CountDownLatch release = new CountDownLatch(1);
+      Concurrency concurrency = new Concurrency();
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 6; i++) {
+        futures.add(executor.submit("host" + (i % 3), new Blocking(i, concurrency, started, release)));
+      }
+      Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+      // Give the pool a chance to start more tasks than it should
+      TimeUnit.MILLISECONDS.sleep(100);
+      Assert.assertEquals(2, concurrency.running.get());
+
+      release.countDown();
+      for (int i = 0; i < futures.size(); i++) {
+        Assert.assertEquals(i, (int) futures.get(i).get(5, TimeUnit.SECONDS));
+      }
+      Assert.assertEquals(2, concurrency.max.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testLaneCap() throws Exception {
+    LaneExecutor executor = new LaneExecutor("test-lanes", 4, 1);
+    try {
+      CountDownLatch firstStarted = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      Concurrency busyLane = new Concurrency();
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        futures.add(executor.submit("host1", new Blocking(i, busyLane, firstStarted, release)));
+      }
+      Assert.assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+
+      // Another lane is not held back by the busy one
+      Future<Integer> other = executor.submit("host2", new Blocking(3, new Concurrency(), new CountDownLatch(1),
+                                                                    new CountDownLatch(0)));
+      Assert.assertEquals(3, (int) other.get(5, TimeUnit.SECONDS));
+      Assert.assertEquals(1, busyLane.running.get());
+
+      release.countDown();
+      for (Future<Integer> future : futures) {
+        future.get(5, TimeUnit.SECONDS);
+      }
+      Assert.assertEquals(1, busyLane.max.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testFifoWithinLane() throws Exception {
+    LaneExecutor executor = new LaneExecutor("test-lanes", 4, 1);
+    try {
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+      List<Future<Integer>> futures = new ArrayList<>();
+      futures.add(executor.submit("host1", new Blocking(0, new Concurrency(), started, release)));
+      Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+      for (int i = 1; i < 5; i++) {
+        final int index = i;
+        futures.add(executor.submit("host1", new Callable<Integer>() {
+          @Override
+          public Integer call() {
+            order.add(index);
+            return index;
+          }
+        }));
+      }
+
+      release.countDown();
+      for (Future<Integer> future : futures) {
+        future.get(5, TimeUnit.SECONDS);
+      }
+      Assert.assertEquals(Arrays.asList(1, 2, 3, 4), order);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test(expected = RejectedExecutionException.class)
+  public void testShutdown() {
+    LaneExecutor executor = new LaneExecutor("test-lanes", 1, 1);
+    executor.shutdown();
+    executor.submit("host1", new Callable<Integer>() {
+      @Override
+      public Integer call() {
+        return 0;
+      }
+    });
+  }
+
+  /**
+   * Tracks how many tasks run at once.
+   */
+  private static final class Concurrency {
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger max = new AtomicInteger();
+
+    void enter() {
+      int current = running.incrementAndGet();
+      int previous = max.get();
+      while (current > previous && !max.compareAndSet(previous, current)) {
+        previous = max.get();
+      }
+    }
+
+    void exit() {
+      running.decrementAndGet();
+    }
+  }
+
+  /**
+   * A task that signals it started, then blocks until it is released.
+   */
+  private static final class Blocking implements Callable<Integer> {
+    private final int index;
+    private final Concurrency concurrency;
+    private final CountDownLatch started;
+    private final CountDownLatch release;
+
+    Blocking(int index, Concurrency concurrency, CountDownLatch started, CountDownLatch release) {
+      this.index = index;
+      this.concurrency = concurrency;
+      this.started = started;
+      this.release = release;
+    }
+
+    @Override
+    public Integer call() throws Exception {
+      concurrency.enter();
+      try {
+        started.countDown();
+        // Failing here surfaces through the future, on the test thread
+        if (!release.await(5, TimeUnit.SECONDS)) {
+          throw new TimeoutException("Task " + index + " was never released");
+        }
+        return index;
+      } finally {
+        concurrency.exit();
+      }
+    }
+  }
+}
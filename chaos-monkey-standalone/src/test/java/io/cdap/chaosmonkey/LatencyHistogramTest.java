@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+
+  @Test
+  public void testBuckets() {
+    for (long value : new long[] {0, 1, 31, 32, 63, 64, 1000, 123456789, Long.MAX_VALUE}) {
+      int index = LatencyHistogram.bucketIndex(value);
+      Assert.assertTrue(value <= LatencyHistogram.bucketUpperBound(index));
+      if (index > 0) {
+        Assert.assertTrue(value > LatencyHistogram.bucketUpperBound(index - 1));
+      }
+    }
+    // Small values are exact
+    Assert.assertEquals(31, LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(31)));
+  }
+
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i);
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    Assert.assertEquals(1000, snapshot.getCount());
+    Assert.assertEquals(1, snapshot.getMin());
+    Assert.assertEquals(1000, snapshot.getMax());
+    Assert.assertEquals(500.5, snapshot.getMean(), 0.001);
+    assertWithin(500, snapshot.getValueAtPercentile(50), 0.04);
+    assertWithin(990, snapshot.getValueAtPercentile(99), 0.04);
+    Assert.assertEquals(1000, snapshot.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void testEmpty() {
+    LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+    Assert.assertEquals(0, snapshot.getCount());
+    Assert.assertEquals(0, snapshot.getMax());
+    Assert.assertEquals(0, snapshot.getValueAtPercentile(99));
+  }
+
+  @Test
+  public void testMerge() {
+    LatencyHistogram low = new LatencyHistogram();
+    LatencyHistogram high = new LatencyHistogram();
+    for (int i = 1; i <= 10; i++) {
+      low.record(i);
+      high.record(i + 10);
+    }
+    LatencyHistogram.Snapshot merged = low.snapshot().merge(high.snapshot());
+    Assert.assertEquals(20, merged.getCount());
+    Assert.assertEquals(1, merged.getMin());
+    Assert.assertEquals(20, merged.getMax());
+    Assert.assertEquals(10, merged.getValueAtPercentile(50));
+    // Merging with an empty snapshot keeps the bounds
+    Assert.assertEquals(11, new LatencyHistogram().snapshot().merge(high.snapshot()).getMin());
+  }
+
+  private void assertWithin(long expected, long actual, double relativeError) {
+    Assert.assertTrue(String.format("Expected %d but was %d", expected, actual),
+                      Math.abs(actual - expected) <= expected * relativeError);
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.chaosmonkey;
+
+import com.google.common.collect.ImmutableMap;
+import io.cdap.chaosmonkey.proto.ProcessOutcome;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for {@link ProcessFanOut}.
+ */
+public class ProcessFanOutTest {
+
+  @Test
+  public void testOrdering() throws Exception {
+    final List<RemoteProcess> processes = createProcesses(6);
+    List<ProcessOutcome> outcomes = ProcessFanOut.runWithOutcomes(processes, 3, new ProcessFanOut.OutcomeAction() {
+      @Override
+      public ProcessOutcome apply(RemoteProcess process) throws Exception {
+        // Later processes complete first
+        int index = processes.indexOf(process);
+        TimeUnit.MILLISECONDS.sleep(10 * (processes.size() - index));
+        return new ProcessOutcome(process.getAddress(), process.getName(), ProcessOutcome.Result.SUCCEEDED,
+                                  "done " + index);
+      }
+    });
+
+    Assert.assertEquals(processes.size(), outcomes.size());
+    for (int i = 0; i < outcomes.size(); i++) {
+      Assert.assertEquals("host" + i, outcomes.get(i).getAddress());
+      Assert.assertEquals("done " + i, outcomes.get(i).getMessage());
+    }
+  }
+
+  @Test
+  public void testFailureCapture() throws Exception {
+    List<RemoteProcess> processes = createProcesses(4);
+    List<ProcessOutcome> outcomes = ProcessFanOut.run(processes, 0, new ProcessFanOut.ProcessAction() {
+      @Override
+      public ProcessOutcome.Result apply(RemoteProcess process) throws Exception {
+        if ("host2".equals(process.getAddress())) {
+          throw new IllegalStateException("Unable to reach host2");
+        }
+        return ProcessOutcome.Result.SUCCEEDED;
+      }
+    });
+
+    Assert.assertEquals(4, outcomes.size());
+    for (int i = 0; i < outcomes.size(); i++) {
+      Assert.assertEquals("host" + i, outcomes.get(i).getAddress());
+      Assert.assertEquals("hbase-regionserver", outcomes.get(i).getService());
+      if (i == 2) {
+        Assert.assertEquals(ProcessOutcome.Result.FAILED, outcomes.get(i).getResult());
+        Assert.assertEquals("Unable to reach host2", outcomes.get(i).getMessage());
+      } else {
+        Assert.assertEquals(ProcessOutcome.Result.SUCCEEDED, outcomes.get(i).getResult());
+      }
+    }
+  }
+
+  @Test
+  public void testParallelism() throws Exception {
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger max = new AtomicInteger();
+    List<ProcessOutcome> outcomes = ProcessFanOut.run(createProcesses(8), 2, new ProcessFanOut.ProcessAction() {
+      @Override
+      public ProcessOutcome.Result apply(RemoteProcess process) throws Exception {
+        int current = running.incrementAndGet();
+        synchronized (max) {
+          max.set(Math.max(max.get(), current));
+        }
+        TimeUnit.MILLISECONDS.sleep(20);
+        running.decrementAndGet();
+        return ProcessOutcome.Result.SUCCEEDED;
+      }
+    });
+
+    Assert.assertEquals(8, outcomes.size());
+    Assert.assertTrue("Ran " + max.get() + " processes at once", max.get() <= 2);
+  }
+
+  @Test
+  public void testPerHostLimit() throws Exception {
+    ProcessFanOut.setExecutor(new LaneExecutor("test-fan-out", 4, 1));
+    try {
+      final AtomicInteger running = new AtomicInteger();
+      final AtomicInteger max = new AtomicInteger();
+      List<RemoteProcess> processes = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        processes.add(new StubRemoteProcess("service" + i, "host0"));
+      }
+      List<ProcessOutcome> outcomes = ProcessFanOut.run(processes, 0, new ProcessFanOut.ProcessAction() {
+        @Override
+        public ProcessOutcome.Result apply(RemoteProcess process) throws Exception {
+          int current = running.incrementAndGet();
+          synchronized (max) {
+            max.set(Math.max(max.get(), current));
+          }
+          TimeUnit.MILLISECONDS.sleep(20);
+          running.decrementAndGet();
+          return ProcessOutcome.Result.SUCCEEDED;
+        }
+      });
+
+      Assert.assertEquals(4, outcomes.size());
+      for (int i = 0; i < outcomes.size(); i++) {
+        Assert.assertEquals("service" + i, outcomes.get(i).getService());
+        Assert.assertEquals(ProcessOutcome.Result.SUCCEEDED, outcomes.get(i).getResult());
+      }
+      Assert.assertEquals(1, max.get());
+    } finally {
+      ProcessFanOut.setExecutor(new LaneExecutor("process-fan-out", 64, 8));
+    }
+  }
+
+  @Test
+  public void testGetParallelism() {
+    Assert.assertEquals(0, ProcessFanOut.getParallelism(null));
+    Assert.assertEquals(0, ProcessFanOut.getParallelism(Collections.<String, String>emptyMap()));
+    Assert.assertEquals(4, ProcessFanOut.getParallelism(ImmutableMap.of(ProcessFanOut.PARALLELISM, "4")));
+    Assert.assertEquals(0, ProcessFanOut.getParallelism(ImmutableMap.of(ProcessFanOut.PARALLELISM, "-1")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidParallelism() {
+    Map<String, String> serviceArguments = ImmutableMap.of(ProcessFanOut.PARALLELISM, "all");
+    ProcessFanOut.getParallelism(serviceArguments);
+  }
+
+  private static List<RemoteProcess> createProcesses(int count) {
+    List<RemoteProcess> processes = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      processes.add(new StubRemoteProcess("hbase-regionserver", "host" + i));
+    }
+    return processes;
+  }
+}
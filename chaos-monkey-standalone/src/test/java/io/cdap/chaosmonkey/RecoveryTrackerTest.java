@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.chaosmonkey;
+
+import io.cdap.chaosmonkey.proto.RecoveryStats;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link RecoveryTracker}.
+ */
+public class RecoveryTrackerTest {
+
+  @Test
+  public void testRecovered() throws Exception {
+    RecoveryTracker tracker = new RecoveryTracker(10, 60);
+    try {
+      BlastRadiusBudget budget = new BlastRadiusBudget(0, 0, Collections.<String, Integer>emptyMap(), 0);
+      StubRemoteProcess process = new StubRemoteProcess("recovered-service", "host1");
+      process.setRunning(false);
+      long now = System.currentTimeMillis();
+      tracker.watch(process, now, now, budget.tryReserve(process));
+
+      process.setRunning(true);
+      RecoveryStats stats = awaitWatching(tracker, "recovered-service", 0);
+      Assert.assertEquals(1, stats.getRecovered());
+      Assert.assertEquals(0, stats.getUnrecovered());
+      Assert.assertEquals(0, budget.getDown());
+    } finally {
+      tracker.shutdown();
+    }
+  }
+
+  @Test
+  public void testStuck() throws Exception {
+    RecoveryTracker tracker = new RecoveryTracker(10, 1);
+    try {
+      BlastRadiusBudget budget = new BlastRadiusBudget(0, 0, Collections.<String, Integer>emptyMap(), 0);
+      StubRemoteProcess process = new StubRemoteProcess("stuck-service", "host1");
+      process.setRunning(false);
+      long now = System.currentTimeMillis();
+      tracker.watch(process, now, now, budget.tryReserve(process));
+
+      long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+      while (tracker.getStats("stuck-service").getStuck() == 0 && System.currentTimeMillis() < deadline) {
+        TimeUnit.MILLISECONDS.sleep(10);
+      }
+      RecoveryStats stats = tracker.getStats("stuck-service");
+      Assert.assertEquals(1, stats.getStuck());
+      Assert.assertEquals(1, stats.getUnrecovered());
+      Assert.assertEquals(1, stats.getWatching());
+      // Still down, so it must keep counting against the budget
+      Assert.assertEquals(1, budget.getDown());
+
+      process.setRunning(true);
+      tracker.started(process);
+      stats = tracker.getStats("stuck-service");
+      Assert.assertEquals(0, stats.getStuck());
+      Assert.assertEquals(0, stats.getWatching());
+      Assert.assertEquals(0, stats.getRecovered());
+      Assert.assertEquals(0, budget.getDown());
+    } finally {
+      tracker.shutdown();
+    }
+  }
+
+  private static RecoveryStats awaitWatching(RecoveryTracker tracker, String service,
+                                             int watching) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+    RecoveryStats stats = tracker.getStats(service);
+    while (stats.getWatching() != watching && System.currentTimeMillis() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(10);
+      stats = tracker.getStats(service);
+    }
+    Assert.assertEquals(watching, stats.getWatching());
+    return stats;
+  }
+}
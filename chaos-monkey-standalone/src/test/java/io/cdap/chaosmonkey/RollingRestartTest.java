@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.chaosmonkey;
+
+import io.cdap.chaosmonkey.proto.ProcessOutcome;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for {@link RollingRestart}.
+ */
+public class RollingRestartTest {
+
+  private static final ReadinessProbe RUNNING = new ReadinessProbe() {
+    @Override
+    public boolean isReady(RemoteProcess process) throws Exception {
+      return process.isRunning();
+    }
+  };
+
+  @Test
+  public void testMaxUnavailable() {
+    Assert.assertEquals(1, RollingRestart.getMaxUnavailable(null, 10));
+    Assert.assertEquals(3, RollingRestart.getMaxUnavailable("3", 10));
+    Assert.assertEquals(3, RollingRestart.getMaxUnavailable(" 3 ", 10));
+    // Percentages are rounded up, and always allow at least one process
+    Assert.assertEquals(3, RollingRestart.getMaxUnavailable("25%", 10));
+    Assert.assertEquals(1, RollingRestart.getMaxUnavailable("1%", 10));
+    Assert.assertEquals(4, RollingRestart.getMaxUnavailable("100%", 4));
+
+    for (String invalid : Arrays.asList("0", "-1", "0%", "150%", "many", "%")) {
+      try {
+        RollingRestart.getMaxUnavailable(invalid, 10);
+        Assert.fail("Expected " + invalid + " to be rejected");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testWaves() throws Exception {
+    List<StubRemoteProcess> processes = createProcesses(5);
+    List<ProcessOutcome> outcomes = new RollingRestart().disrupt(asRemoteProcesses(processes), 2, 0, 0, RUNNING, 0);
+
+    Assert.assertEquals(5, outcomes.size());
+    for (int i = 0; i < outcomes.size(); i++) {
+      Assert.assertEquals("host" + i, outcomes.get(i).getAddress());
+      Assert.assertEquals(ProcessOutcome.Result.SUCCEEDED, outcomes.get(i).getResult());
+      Assert.assertEquals(Arrays.asList("sudo service hbase-regionserver stop",
+                                        "sudo service hbase-regionserver start"), processes.get(i).getCommands());
+      Assert.assertTrue(processes.get(i).isRunning());
+    }
+  }
+
+  @Test
+  public void testAbort() throws Exception {
+    List<StubRemoteProcess> processes = createProcesses(5);
+    processes.get(1).setStartable(false);
+    List<ProcessOutcome> outcomes = new RollingRestart().disrupt(asRemoteProcesses(processes), 2, 0, 0, RUNNING, 0);
+
+    Assert.assertEquals(5, outcomes.size());
+    Assert.assertEquals(ProcessOutcome.Result.SUCCEEDED, outcomes.get(0).getResult());
+    Assert.assertEquals(ProcessOutcome.Result.FAILED, outcomes.get(1).getResult());
+    // The later waves are left untouched
+    for (int i = 2; i < outcomes.size(); i++) {
+      Assert.assertEquals("host" + i, outcomes.get(i).getAddress());
+      Assert.assertEquals(ProcessOutcome.Result.SKIPPED, outcomes.get(i).getResult());
+      Assert.assertEquals("Rolling restart was aborted", outcomes.get(i).getMessage());
+      Assert.assertTrue(processes.get(i).getCommands().isEmpty());
+    }
+  }
+
+  @Test
+  public void testNoAbortWithoutProbe() throws Exception {
+    List<StubRemoteProcess> processes = createProcesses(3);
+    processes.get(0).setStartable(false);
+    List<ProcessOutcome> outcomes = new RollingRestart().disrupt(asRemoteProcesses(processes), 1, 0, 0, null, 0);
+
+    Assert.assertEquals(ProcessOutcome.Result.FAILED, outcomes.get(0).getResult());
+    Assert.assertEquals(ProcessOutcome.Result.SUCCEEDED, outcomes.get(1).getResult());
+    Assert.assertEquals(ProcessOutcome.Result.SUCCEEDED, outcomes.get(2).getResult());
+  }
+
+  private static List<StubRemoteProcess> createProcesses(int count) {
+    List<StubRemoteProcess> processes = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      processes.add(new StubRemoteProcess("hbase-regionserver", "host" + i));
+    }
+    return processes;
+  }
+
+  private static List<RemoteProcess> asRemoteProcesses(List<StubRemoteProcess> processes) {
+    return Collections.<RemoteProcess>unmodifiableList(processes);
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SlidingWindowHistogram}.
+ */
+public class SlidingWindowHistogramTest {
+
+  @Test
+  public void testWindow() {
+    SlidingWindowHistogram window = new SlidingWindowHistogram(10000, 10);
+    window.record(100, 0);
+    window.record(200, 5000);
+    window.record(300, 9999);
+    Assert.assertEquals(3, window.snapshot(9999).getCount());
+
+    // The slot of the first value leaves the window
+    LatencyHistogram.Snapshot snapshot = window.snapshot(10000);
+    Assert.assertEquals(2, snapshot.getCount());
+    Assert.assertEquals(200, snapshot.getMin());
+
+    // A slot that is reused only holds new values
+    window.record(400, 10500);
+    snapshot = window.snapshot(10500);
+    Assert.assertEquals(3, snapshot.getCount());
+    Assert.assertEquals(400, snapshot.getMax());
+
+    Assert.assertEquals(0, window.snapshot(30000).getCount());
+  }
+
+  @Test
+  public void testClear() {
+    SlidingWindowHistogram window = new SlidingWindowHistogram(10000, 10);
+    window.record(100, 0);
+    window.clear();
+    Assert.assertEquals(0, window.snapshot(0).getCount());
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the construction of remote commands in {@link SshShell}.
+ */
+public class SshShellTest {
+
+  @Test
+  public void testQuote() {
+    Assert.assertEquals("'echo hello'", SshShell.quote("echo hello"));
+    Assert.assertEquals("'echo '\\''it'\\''s'\\'''", SshShell.quote("echo 'it's'"));
+    Assert.assertEquals("''", SshShell.quote(""));
+  }
+
+  @Test
+  public void testWrapCommand() {
+    String command = "grep 'a b' /tmp/file";
+    Assert.assertEquals(command, SshShell.wrapCommand(ExecMode.DIRECT, command, null));
+    Assert.assertEquals("bash -c 'grep '\\''a b'\\'' /tmp/file'", SshShell.wrapCommand(ExecMode.BASH, command, null));
+    Assert.assertEquals("bash -c 'declare -x A=\"1\"\ngrep '\\''a b'\\'' /tmp/file'",
+                        SshShell.wrapCommand(ExecMode.CACHED_LOGIN, command, "declare -x A=\"1\"\n"));
+    String login = SshShell.wrapCommand(ExecMode.LOGIN, command, null);
+    Assert.assertTrue(login.contains("bash -lc '"));
+    Assert.assertTrue(login.endsWith("grep '\\''a b'\\'' /tmp/file'"));
+  }
+
+  @Test
+  public void testParseEnvironment() {
+    String output = "Welcome\nchaosmonkey-environment\n"
+      + "declare -x HADOOP_HOME=\"/usr/lib/hadoop\"\n"
+      + "declare -x PWD=\"/home/user\"\n"
+      + "declare -x MULTI=\"a\nb\"\n"
+      + "declare -x SSH_CONNECTION=\"1.2.3.4 5 6.7.8.9 22\"\n";
+    Assert.assertEquals("declare -x HADOOP_HOME=\"/usr/lib/hadoop\"\ndeclare -x MULTI=\"a\nb\"\n",
+                        SshShell.parseEnvironment(output));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseEnvironmentWithoutMarker() {
+    SshShell.parseEnvironment("declare -x A=\"1\"\n");
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.chaosmonkey;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link RemoteProcess} for tests, that records the commands it is given instead of running them. The
+ * {@code service <name> stop} and {@code service <name> start} commands stop and start the process, and starting can
+ * be made to fail.
+ */
+public class StubRemoteProcess implements RemoteProcess {
+  private final String name;
+  private final String address;
+  private final List<String> commands;
+  private volatile boolean running;
+  private volatile boolean startable;
+
+  public StubRemoteProcess(String name, String address) {
+    this.name = name;
+    this.address = address;
+    this.commands = Collections.synchronizedList(new ArrayList<String>());
+    this.running = true;
+    this.startable = true;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public String getAddress() {
+    return address;
+  }
+
+  @Override
+  public String getPidFile() {
+    return "/var/run/" + name + ".pid";
+  }
+
+  @Override
+  public int execAndGetReturnCode(String command) {
+    commands.add(command);
+    if (command.endsWith("service " + name + " stop")) {
+      running = false;
+    } else if (command.endsWith("service " + name + " start")) {
+      running = startable;
+      return startable ? 0 : 1;
+    }
+    return 0;
+  }
+
+  @Override
+  public boolean execAndReturnSucessful(String command) {
+    return execAndGetReturnCode(command) == 0;
+  }
+
+  @Override
+  public ShellOutput execAndGetOutput(String command) {
+    return new ShellOutput(execAndGetReturnCode(command), "", "");
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  public void setRunning(boolean running) {
+    this.running = running;
+  }
+
+  public void setStartable(boolean startable) {
+    this.startable = startable;
+  }
+
+  /**
+   * Returns the commands executed so far.
+   */
+  public List<String> getCommands() {
+    synchronized (commands) {
+      return new ArrayList<>(commands);
+    }
+  }
+}
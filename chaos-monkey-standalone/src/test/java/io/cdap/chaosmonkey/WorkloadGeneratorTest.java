@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.chaosmonkey;
+
+import io.cdap.chaosmonkey.proto.WorkloadInterval;
+import io.cdap.chaosmonkey.proto.WorkloadReport;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link WorkloadGenerator}.
+ */
+public class WorkloadGeneratorTest {
+
+  @Test
+  public void testHttp() throws Exception {
+    try (final ServerSocket server = new ServerSocket(0)) {
+      Thread serverThread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          serve(server);
+        }
+      });
+      serverThread.setDaemon(true);
+      serverThread.start();
+
+      WorkloadGenerator workload = WorkloadGenerator.http("test", new URL("http://localhost:" + server.getLocalPort()
+                                                                            + "/ping"), 50, 2000, 100, 1, 10);
+      workload.startAsync().awaitRunning();
+      ActiveDisruptions.Record record = ActiveDisruptions.getDefault().begin("test-service", "kill");
+      try {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (workload.getReport().getIntervals().size() < 2 && System.currentTimeMillis() < deadline) {
+          TimeUnit.MILLISECONDS.sleep(100);
+        }
+      } finally {
+        record.end();
+        workload.stopAsync().awaitTerminated();
+      }
+
+      WorkloadReport report = workload.getReport();
+      Assert.assertTrue(report.getIntervals().size() >= 2);
+      WorkloadInterval interval = report.getIntervals().get(1);
+      Assert.assertEquals(0, interval.getFailed());
+      Assert.assertTrue(interval.getSucceeded() > 0);
+      Assert.assertEquals(interval.getSucceeded(), interval.getLatencyMicros().getCount());
+      Assert.assertTrue(interval.getDisruptions().contains("test-service/kill"));
+    }
+  }
+
+  @Test
+  public void testRefused() throws Exception {
+    int port;
+    try (ServerSocket server = new ServerSocket(0)) {
+      port = server.getLocalPort();
+    }
+    WorkloadGenerator workload = WorkloadGenerator.tcp("refused", "localhost", port, 50, 2000, 100, 1, 10);
+    workload.startAsync().awaitRunning();
+    try {
+      long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+      while (workload.getReport().getIntervals().isEmpty() && System.currentTimeMillis() < deadline) {
+        TimeUnit.MILLISECONDS.sleep(100);
+      }
+    } finally {
+      workload.stopAsync().awaitTerminated();
+    }
+    WorkloadInterval interval = workload.getReport().getIntervals().get(0);
+    Assert.assertEquals(0, interval.getSucceeded());
+    Assert.assertTrue(interval.getFailed() > 0);
+  }
+
+  private void serve(ServerSocket server) {
+    byte[] response = "HTTP/1.1 200 OK\r\nContent-Length: 0\r\nConnection: close\r\n\r\n"
+      .getBytes(StandardCharsets.US_ASCII);
+    while (!server.isClosed()) {
+      try (Socket socket = server.accept()) {
+        InputStream in = socket.getInputStream();
+        // Read up to the end of the request headers
+        int matched = 0;
+        while (matched < 4) {
+          int b = in.read();
+          if (b < 0) {
+            break;
+          }
+          matched = (b == '\r' || b == '\n') ? matched + 1 : 0;
+        }
+        OutputStream out = socket.getOutputStream();
+        out.write(response);
+        out.flush();
+      } catch (IOException e) {
+        // The server was closed
+      }
+    }
+  }
+}